@@ -0,0 +1,167 @@
+/**
+ * @description Table of the achievements that are earned by reaching a threshold
+ *
+ * @purpose The main window used to check every achievement by hand (achievementUpdates) after loading
+ * and after feeding, and journaled the profile each time, even when nothing was earned. The threshold
+ * achievements are now rows of a table: the achievement, the property it depends on, what value is read
+ * and the threshold. The rules listen to the profile and only the rules of the property that changed
+ * are checked; rules of achievements that are already earned are skipped with one mask test.
+ * Achievements only fire a change event (and so are only journaled) when a bit actually flips.
+ *
+ * The login streak achievements are checked when the login is recorded (see LoginStreak).
+ *
+ * Achievements that are not a threshold (customizing, the food shop, updating the profile) are still
+ * earned where they happen.
+ */
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.*;
+
+public class AchievementRules implements PropertyChangeListener {
+
+	/*
+	 * Value of the profile a rule compares with its threshold
+	 */
+	public interface Input {
+		long of(Profile p);
+	}
+
+	public static final Input TOTAL_TIME = new Input() {
+		@Override
+		public long of(Profile p) {
+			return p.getTotalTime();
+		}
+	};
+
+	public static final Input HAPPINESS = new Input() {
+		@Override
+		public long of(Profile p) {
+			return p.getTamo().getHappiness();
+		}
+	};
+
+	public static final Input LOGIN_STREAK = new Input() {
+		@Override
+		public long of(Profile p) {
+			return p.getLoginStreak();
+		}
+	};
+
+	/*
+	 * Earns the achievement once the input is at least the threshold
+	 */
+	public static class Rule {
+		public final int achievement;
+		public final String property;
+		public final Input input;
+		public final long threshold;
+
+		public Rule(int achievement, String property, Input input, long threshold) {
+			this.achievement = achievement;
+			this.property = property;
+			this.input = input;
+			this.threshold = threshold;
+		}
+	}
+
+	public static final Rule[] RULES = {
+		new Rule(0, Profile.TOTAL_TIME, TOTAL_TIME, 3 * 3600),			//The Beginning
+		new Rule(1, Profile.TOTAL_TIME, TOTAL_TIME, 24 * 3600),			//Nothing can stop you!
+		new Rule(2, Profile.TOTAL_TIME, TOTAL_TIME, 7 * 24 * 3600),		//Never give up!
+		new Rule(7, Tamo.HAPPINESS, HAPPINESS, 10),						//Tamo Love
+		new Rule(8, Profile.LOGIN_STREAK, LOGIN_STREAK, 7),				//Dedication 1
+		new Rule(9, Profile.LOGIN_STREAK, LOGIN_STREAK, 14),			//Dedication 2
+		new Rule(10, Profile.LOGIN_STREAK, LOGIN_STREAK, 30),			//Dedicated
+	};
+
+	//A replaced Tamo or achievements object is checked like a change of the Tamo's properties / of everything
+	private static final Map<String, String[]> REPLACED = new HashMap<String, String[]>();
+	static {
+		REPLACED.put(Profile.TAMO, new String[] {Tamo.HAPPINESS});
+		REPLACED.put(Profile.ACHIEVEMENTS, null);
+	}
+
+	private final Profile profile;
+	private final Map<String, Rule[]> byProperty = new HashMap<String, Rule[]>();
+	private long evaluations;
+
+	public AchievementRules(Profile profile) {
+		this(profile, RULES);
+	}
+
+	public AchievementRules(Profile profile, Rule[] rules) {
+		this.profile = profile;
+
+		Map<String, List<Rule>> grouped = new HashMap<String, List<Rule>>();
+		for(Rule rule : rules) {
+			List<Rule> list = grouped.get(rule.property);
+			if(list == null) {
+				list = new ArrayList<Rule>();
+				grouped.put(rule.property, list);
+			}
+			list.add(rule);
+		}
+		for(Map.Entry<String, List<Rule>> entry : grouped.entrySet()) {
+			byProperty.put(entry.getKey(), entry.getValue().toArray(new Rule[0]));
+		}
+	}
+
+	/*
+	 * Checks every rule once, then follows the profile's changes
+	 */
+	public void attach() {
+		evaluateAll();
+		profile.addPropertyChangeListener(this);
+	}
+
+	public void detach() {
+		profile.removePropertyChangeListener(this);
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent evt) {
+		String property = evt.getPropertyName();
+		if(REPLACED.containsKey(property)) {
+			String[] parts = REPLACED.get(property);
+			if(parts == null) {
+				evaluateAll();
+			} else {
+				for(String part : parts)
+					evaluate(part);
+			}
+		} else {
+			evaluate(property);
+		}
+	}
+
+	public void evaluateAll() {
+		for(String property : byProperty.keySet())
+			evaluate(property);
+	}
+
+	/*
+	 * Checks the rules of the property, returns the number of achievements that were earned
+	 */
+	public int evaluate(String property) {
+		Rule[] rules = byProperty.get(property);
+		if(rules == null)
+			return 0;
+
+		int earned = 0;
+		long bits = profile.getAhm().getBits() & 0xFFFFFFFFL;
+		for(Rule rule : rules) {
+			if((bits & (1L << rule.achievement)) != 0)
+				continue;
+			evaluations++;
+			if(rule.input.of(profile) >= rule.threshold && profile.getAhm().earn(rule.achievement))
+				earned++;
+		}
+		return earned;
+	}
+
+	//Number of rules that were compared with their threshold
+	public long getEvaluations() {
+		return evaluations;
+	}
+}
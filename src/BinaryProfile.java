@@ -0,0 +1,226 @@
+/**
+ * @description Binary, versioned profile format
+ *
+ * @purpose The text profile format is a comma joined string where every field is found by position,
+ * so a comma in a Tamo name breaks it and every number is parsed from a String.
+ * The binary format has a header (magic, schema version, checksum) followed by the numbers at
+ * fixed offsets, then the two names as length-prefixed UTF-8. Numbers are read straight out of a
+ * memory-mapped buffer with no Strings in between.
+ *
+ * Layout (big endian):
+ * 0 magic "TAMO" | 4 version (short) | 6 flags (short) | 8 CRC32 of bytes 12..end
+ * 12.. the int fields listed below | 72 username | tamo name | save generation (long)
+ *
+ * The save generation (see ProfileJournal) is missing in profiles saved before the journal had
+ * generations, it is read as 0. Readers that don't know it ignore it, so the schema version stays 1.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+import profile.*;
+
+public class BinaryProfile {
+
+	public static final int MAGIC = 0x54414D4F;	// "TAMO"
+	public static final short VERSION = 1;
+
+	/*
+	 * Fixed offsets of the header and fields
+	 */
+	private static final int MAGIC_OFFSET = 0;
+	private static final int VERSION_OFFSET = 4;
+	private static final int FLAGS_OFFSET = 6;
+	private static final int CRC_OFFSET = 8;
+	private static final int TOTAL_TIME = 12;
+	private static final int MONEY = 16;
+	private static final int CURRENT_BACKGROUND = 20;
+	private static final int GUI_COLOR = 24;
+	private static final int WARNINGS = 28;
+	private static final int FOCUS_MODE = 32;
+	private static final int LANGUAGE = 36;
+	private static final int SESSION_SOUNDS = 40;
+	private static final int BACKGROUND_SOUNDS = 44;
+	private static final int TAMO_ID = 48;
+	private static final int HAPPINESS = 52;
+	private static final int HUNGER = 56;
+	private static final int AHM_BITS = 60;
+	private static final int JOIN_DAY = 64;
+	private static final int LAST_LOGIN_DAY = 68;
+	private static final int STRINGS = 72;
+
+	//Used for a missing date
+	private static final int NO_DAY = Integer.MIN_VALUE;
+
+	/*
+	 * Returns true if the file starts with the binary profile magic
+	 */
+	public static boolean isBinary(File file) {
+		if(file.length() < STRINGS)
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Reads a binary profile through a memory-mapped buffer
+	 */
+	public static Profile read(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return decode(buffer);
+		}
+	}
+
+	/*
+	 * Decodes a profile from a buffer holding one complete binary profile starting at position 0
+	 */
+	public static Profile decode(ByteBuffer buffer) throws IOException {
+		if(buffer.limit() < STRINGS || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+			throw new IOException("Not a TamoStudy binary profile");
+		if(buffer.getShort(VERSION_OFFSET) > VERSION)
+			throw new IOException("Profile was saved by a newer version of TamoStudy (schema " + buffer.getShort(VERSION_OFFSET) + ")");
+		if(buffer.getInt(CRC_OFFSET) != checksum(buffer))
+			throw new IOException("Profile file is corrupted or was modified");
+
+		ByteBuffer strings = buffer.duplicate();
+		strings.position(STRINGS);
+		String username = readString(strings);
+		String tamoName = readString(strings);
+		long generation = strings.remaining() >= 8 ? strings.getLong() : 0;
+
+		ProfileSettings settings = new ProfileSettings(buffer.getInt(FOCUS_MODE), buffer.getInt(LANGUAGE), buffer.getInt(SESSION_SOUNDS), buffer.getInt(BACKGROUND_SOUNDS));
+		Tamo tamo = new Tamo(tamoName, buffer.getInt(TAMO_ID), buffer.getInt(HAPPINESS), buffer.getInt(HUNGER));
+		Achievements ahm = new Achievements();
+		ahm.setBits(buffer.getInt(AHM_BITS));
+
+		Profile p = new Profile(username, dayString(buffer.getInt(JOIN_DAY)), dayString(buffer.getInt(LAST_LOGIN_DAY)), buffer.getInt(TOTAL_TIME), buffer.getInt(MONEY),
+				buffer.getInt(CURRENT_BACKGROUND), Profile.GUI_COLORS[0], buffer.getInt(WARNINGS), settings, tamo, ahm);
+		p.setGuiColorIndex(buffer.getInt(GUI_COLOR));
+		p.setGeneration(generation);
+		return p;
+	}
+
+	/*
+	 * Returns true if the buffer holds one complete binary profile whose checksum matches
+	 * Used by profile stores to skip a slot that was torn by a crash.
+	 */
+	public static boolean isValid(ByteBuffer buffer) {
+		if(buffer.limit() < STRINGS + 4 || buffer.getInt(MAGIC_OFFSET) != MAGIC)
+			return false;
+		if(buffer.getInt(CRC_OFFSET) != checksum(buffer))
+			return false;
+
+		int usernameLength = buffer.getShort(STRINGS) & 0xFFFF;
+		return STRINGS + 2 + usernameLength <= buffer.limit();
+	}
+
+	/*
+	 * Reads only the username of a binary profile, used to index profile stores
+	 */
+	public static String readUsername(ByteBuffer buffer) {
+		ByteBuffer strings = buffer.duplicate();
+		strings.position(STRINGS);
+		return readString(strings);
+	}
+
+	/*
+	 * Encodes a profile into the binary format
+	 */
+	public static byte[] encode(Profile p) {
+		return encode(ProfileSnapshot.of(p));
+	}
+	
+	public static byte[] encode(ProfileSnapshot p) {
+		byte[] username = p.getUsername().getBytes(StandardCharsets.UTF_8);
+		byte[] tamoName = p.getTamoName().getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer buffer = ByteBuffer.allocate(STRINGS + 2 + username.length + 2 + tamoName.length + 8);
+		buffer.putInt(MAGIC_OFFSET, MAGIC);
+		buffer.putShort(VERSION_OFFSET, VERSION);
+		buffer.putShort(FLAGS_OFFSET, (short) 0);
+		buffer.putInt(TOTAL_TIME, p.getTotalTime());
+		buffer.putInt(MONEY, p.getMoney());
+		buffer.putInt(CURRENT_BACKGROUND, p.getCurrentBackground());
+		buffer.putInt(GUI_COLOR, p.getGuiColorIndex());
+		buffer.putInt(WARNINGS, p.getWarnings());
+		buffer.putInt(FOCUS_MODE, p.getFocusMode());
+		buffer.putInt(LANGUAGE, p.getLanguage());
+		buffer.putInt(SESSION_SOUNDS, p.getSessionSounds());
+		buffer.putInt(BACKGROUND_SOUNDS, p.getBackgroundSounds());
+		buffer.putInt(TAMO_ID, p.getTamoId());
+		buffer.putInt(HAPPINESS, p.getHappiness());
+		buffer.putInt(HUNGER, p.getHunger());
+		buffer.putInt(AHM_BITS, p.getAhmBits());
+		buffer.putInt(JOIN_DAY, epochDay(p.getJoinDate()));
+		buffer.putInt(LAST_LOGIN_DAY, epochDay(p.getLastLogin()));
+
+		buffer.position(STRINGS);
+		buffer.putShort((short) username.length);
+		buffer.put(username);
+		buffer.putShort((short) tamoName.length);
+		buffer.put(tamoName);
+		buffer.putLong(p.getGeneration());
+
+		buffer.putInt(CRC_OFFSET, checksum(buffer));
+		return buffer.array();
+	}
+
+	public static void write(Profile p, File file) throws IOException {
+		ProfileWriter.writeAtomically(file, encode(p));
+	}
+
+	/*
+	 * Converts a profile in today's (encrypted) text format into the binary format
+	 */
+	public static void convert(File textFile, File binaryFile) throws IOException {
+		PersistenceService.awaitFlush(textFile);
+		Profile p = Profile.fromFileString(new Encryption().readFile(textFile));
+		write(p, binaryFile);
+	}
+
+	private static int checksum(ByteBuffer buffer) {
+		CRC32 crc = new CRC32();
+		ByteBuffer body = buffer.duplicate();
+		body.limit(buffer.limit());
+		body.position(TOTAL_TIME);
+
+		byte[] chunk = new byte[Math.min(body.remaining(), 512)];
+		while(body.hasRemaining()) {
+			int length = Math.min(chunk.length, body.remaining());
+			body.get(chunk, 0, length);
+			crc.update(chunk, 0, length);
+		}
+		return (int) crc.getValue();
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int epochDay(String date) {
+		try {
+			return (int) LocalDate.parse(date).toEpochDay();
+		} catch (Exception e) {
+			return NO_DAY;
+		}
+	}
+
+	private static String dayString(int epochDay) {
+		if(epochDay == NO_DAY)
+			return null;
+		return LocalDate.ofEpochDay(epochDay).toString();
+	}
+}
@@ -5,9 +5,36 @@
  *
  */
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
 public class Encryption {
 	protected int key = 6;
 	
+	/*
+	 * Streaming encryption:
+	 *
+	 * Profile files are written as "TSE1" + 12 byte IV + AES-GCM ciphertext.
+	 * The cipher streams encrypt and decrypt chunk by chunk while the file is read or written,
+	 * and the GCM tag detects a modified file without a second pass over it.
+	 * Files without the header are from older versions and use the shift cipher below.
+	 */
+	public static final String HEADER = "TSE1";
+	private static final byte[] MAGIC = HEADER.getBytes(StandardCharsets.US_ASCII);
+	private static final int IV_LENGTH = 12;
+	private static final int TAG_BITS = 128;
+	private static final SecretKeySpec AES_KEY = deriveKey("TamoStudy profile key");
+	private static final SecureRandom random = new SecureRandom();
+
 	/*
 	 * Simple Encryption algorithm by me:
 	 * 
@@ -41,4 +68,126 @@ public class Encryption {
 		String encryptedMessage = new String(chars);
 		return encryptedMessage;
 	}
+	
+	/*
+	 * Wraps an output stream so everything written to it is encrypted
+	 * The header and IV are written right away, the GCM tag when the stream is closed
+	 */
+	public OutputStream encryptingStream(OutputStream out) throws IOException {
+		byte[] iv = new byte[IV_LENGTH];
+		random.nextBytes(iv);
+
+		out.write(MAGIC);
+		out.write(iv);
+		return new CipherOutputStream(out, cipher(Cipher.ENCRYPT_MODE, iv));
+	}
+
+	/*
+	 * Wraps an input stream that starts with the encryption header
+	 */
+	public InputStream decryptingStream(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		byte[] magic = new byte[MAGIC.length];
+		data.readFully(magic);
+		if(!Arrays.equals(magic, MAGIC))
+			throw new IOException("Profile is not encrypted with the streaming cipher");
+
+		byte[] iv = new byte[IV_LENGTH];
+		data.readFully(iv);
+		return new CipherInputStream(in, cipher(Cipher.DECRYPT_MODE, iv));
+	}
+
+	/*
+	 * Character versions of the streams, text is encoded chunk by chunk as UTF-8
+	 */
+	public Writer encryptingWriter(OutputStream out) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(encryptingStream(out), StandardCharsets.UTF_8));
+	}
+
+	public Reader decryptingReader(InputStream in) throws IOException {
+		return new BufferedReader(new InputStreamReader(decryptingStream(in), StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * Writes the text encrypted to the file
+	 */
+	public void writeFile(File file, String text) throws IOException {
+		ProfileWriter.writeAtomically(file, encryptToBytes(text));
+	}
+
+	/*
+	 * Returns the text encrypted, as it would be written to a file
+	 */
+	public byte[] encryptToBytes(String text) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() + 64);
+		try (Writer writer = encryptingWriter(bytes)) {
+			writer.write(text);
+		} catch (IOException e) {
+			//ByteArrayOutputStream does not throw
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/*
+	 * Reads and decrypts a profile text file, in the streaming format or the old shift format
+	 * A streaming file that was modified fails with an IOException
+	 */
+	public String readFile(File file) throws IOException {
+		return read(new FileInputStream(file));
+	}
+
+	/*
+	 * Same as readFile, for the contents of a file that was already read
+	 */
+	public String decode(byte[] contents) throws IOException {
+		return read(new ByteArrayInputStream(contents));
+	}
+
+	private String read(InputStream stream) throws IOException {
+		try (BufferedInputStream in = new BufferedInputStream(stream)) {
+			in.mark(MAGIC.length);
+			byte[] magic = new byte[MAGIC.length];
+			int read = in.read(magic);
+			in.reset();
+
+			StringBuilder text = new StringBuilder();
+			if(read == MAGIC.length && Arrays.equals(magic, MAGIC)) {
+				try (Reader reader = decryptingReader(in)) {
+					char[] chunk = new char[1024];
+					int length;
+					while((length = reader.read(chunk)) != -1) {
+						text.append(chunk, 0, length);
+					}
+				}
+				return text.toString();
+			}
+
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+			String line;
+			while((line = reader.readLine()) != null) {
+				text.append(line);
+			}
+			return decrypt(text.toString());
+		}
+	}
+
+	private static Cipher cipher(int mode, byte[] iv) throws IOException {
+		try {
+			Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+			cipher.init(mode, AES_KEY, new GCMParameterSpec(TAG_BITS, iv));
+			return cipher;
+		} catch (GeneralSecurityException e) {
+			throw new IOException("AES-GCM is not available", e);
+		}
+	}
+
+	private static SecretKeySpec deriveKey(String passphrase) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(passphrase.getBytes(StandardCharsets.UTF_8));
+			return new SecretKeySpec(Arrays.copyOf(hash, 16), "AES");
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
 }
@@ -13,8 +13,23 @@ import java.awt.image.BufferedImage;
 import java.io.*;
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import guicomponents.ChangeBatcher;
+import guicomponents.IconCache;
+import guicomponents.PowerMonitor;
+import guicomponents.TamoSprite;
+import profile.Achievements;
+import profile.Language;
+import profile.ProfileSettings;
+import timer.FocusTimer;
+import timer.PomodoroPlan;
+import timer.PomodoroScheduler;
+import timer.TimerService;
 
 public class GUI extends JFrame {
 	
@@ -41,7 +56,8 @@ public class GUI extends JFrame {
 	private JPanel tamoPanel;
 	
 	private JPanel tamoImagePanel;
-	private JLabel imageLabel, backgroundImageLabel;
+	private TamoSprite tamoSprite;
+	private JLabel backgroundImageLabel;
 	
 	private JPanel tamoStatsPanel;
 	private JLabel tamoHappiness, tamoHunger;
@@ -62,9 +78,9 @@ public class GUI extends JFrame {
 	 * timerPanel
 	 * JPanels: timerTextPanel, timerSetPanel, timerButtonPanel
 	 * timerTextPanel: the actual text of timer counting down
-	 * 		Components: minutesLabel, spaceLabel, secondsLabel
+	 * 		Components: minutesLabel, spaceLabel, secondsLabel, phaseLabel (Pomodoro)
 	 * timerSetPanel: combo boxes for settings the timer
-	 * 		Components: minutesComboBox, secondsComboBox
+	 * 		Components: minutesComboBox, secondsComboBox, pomodoroBox
 	 * timerButtonPanel: start and stop
 	 * 		Components: start and break buttons
 	 */
@@ -72,11 +88,11 @@ public class GUI extends JFrame {
 	private JPanel timerPanel;
 	
 	private JPanel timerTextPanel;
-	private JLabel minuteTime, secondTime, spaceLabel;
+	private JLabel minuteTime, secondTime, spaceLabel, phaseLabel;
 	
 	private JPanel timerSetPanel;
 	private JComboBox minuteBox, secondBox;
-	private JComboBox fiveIntervalBox;
+	private JComboBox fiveIntervalBox, pomodoroBox;
 	
 	private JPanel timerButtonPanel;
 	private JButton startButton, breakButton;
@@ -89,15 +105,38 @@ public class GUI extends JFrame {
 	/*
 	 * Variables
 	 */
-	private int min, sec, tempMin, tempSec, studyMin, studySec, studyTimeMinutes, studyTimeSeconds;
-	private boolean zeroMinFlag, zeroSecFlag, isStopped = false, death;
+	private int min, sec, studyMin, studySec, studyTimeMinutes, studyTimeSeconds;
+	private boolean isStopped = false, death;
 	private String studyMessage;
-	private Timer timer;
+	
+	//The focus timer keeps the time, the shared TimerService polls it
+	private FocusTimer focusTimer;
+	private boolean sessionActive;
+	private long uncreditedNanos;	//focus time below one second, credited with the next session
+	private FocusTimer pomodoroTimer;
+	private PomodoroScheduler pomodoro;
 	private Profile profile;
 	private int sessionMin, sessionSec;
+	private long sessionStartMillis;
+	private int plannedSeconds;
 	
 	private File profileFile;
-	private Encryption encryption;
+	private StudyHistory history;
+	//Profile changes, collected and handed to the widgets once per frame
+	private final ChangeBatcher changes = new ChangeBatcher();
+	//Threshold achievements, and the achievements of the last journal or snapshot
+	private AchievementRules achievements;
+	private int journaledAhm;
+	
+	//Low power mode: the window is minimized or hidden, see setLowPower
+	private boolean lowPower;
+	//The window was closed (see hideWindow), it no longer decides the TimerService's mode
+	private boolean disposed;
+	private final PowerMonitor power = new PowerMonitor();
+	private JLabel debugCounter;
+	private Timer debugCounterTimer;
+	//Newest snapshot of the profile, read by other threads instead of the mutable profile
+	private final AtomicReference<ProfileSnapshot> publishedProfile = new AtomicReference<ProfileSnapshot>();
 	
 
 	/*
@@ -126,7 +165,7 @@ public class GUI extends JFrame {
 		
 		setUpFrame();
 		
-		updateHappyHunger();
+		updateHappyHunger(LoginStreak.open(null, profile.getUsername()));
 		
 		//updateUserInformation(p);
 		
@@ -148,15 +187,19 @@ public class GUI extends JFrame {
 		this.death = false;
 		this.profile = p;
 		this.profileFile = file;
-		encryption = new Encryption();
-		
 		setUpFrame();
 		
-		updateHappyHunger();
+		LoginStreak logins = LoginStreak.open(profileFile, profile.getUsername());
+		updateHappyHunger(logins);
 		
-		achievementUpdates();
+		achievements = new AchievementRules(profile);
+		achievements.attach();
+		
+		//Dedication achievements: the rules follow the streak of the login that is recorded now
+		profile.setLoginStreak(logins.recordLogin(LocalDate.now().toEpochDay()));
 		
 		updateUserInformationToFile();
+		journaledAhm = profile.getAhm().getBits();
 		
 		initComponents();
 		
@@ -175,7 +218,7 @@ public class GUI extends JFrame {
 	 */
 	public void setUpFrame() {
 		//ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("heart.png"));
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		
 		UIManager UI = new UIManager();
 		UI.put("OptionPane.background", profile.getColor());
@@ -205,6 +248,10 @@ public class GUI extends JFrame {
 		initActions();
 		
 		initButtonVisuals();
+		
+		subscribeWidgets();
+		
+		initPowerActions();
 	}
 	
 	/*
@@ -221,10 +268,10 @@ public class GUI extends JFrame {
 		profileMenu = new JMenu("Profile");	
 		
 		//Initialize Head Panel components
-		statsButton = new JMenuItem(profile.getSettings().getLang().getText(5), new ImageIcon(getClass().getClassLoader().getResource("menu-stats.png")));
-		optionsButton = new JMenuItem(profile.getSettings().getLang().getText(8), new ImageIcon(getClass().getClassLoader().getResource("menu-options.png")));
-		ahmButton = new JMenuItem(profile.getSettings().getLang().getText(21), new ImageIcon(getClass().getClassLoader().getResource("menu-ahm.png")));
-		inventoryButton = new JMenuItem("Inventory", new ImageIcon(getClass().getClassLoader().getResource("menu-inventory.png")));
+		statsButton = new JMenuItem(profile.getSettings().getLang().getText(5), IconCache.get("menu-stats.png"));
+		optionsButton = new JMenuItem(profile.getSettings().getLang().getText(8), IconCache.get("menu-options.png"));
+		ahmButton = new JMenuItem(profile.getSettings().getLang().getText(21), IconCache.get("menu-ahm.png"));
+		inventoryButton = new JMenuItem("Inventory", IconCache.get("menu-inventory.png"));
 		inventoryButton.setEnabled(false);
 		
 		//Other Menu Options
@@ -247,6 +294,12 @@ public class GUI extends JFrame {
 		
 		//Add Components to Head Panel
 		headPanel.add(headMenu);
+		
+		//Debug counter, shown with F3
+		debugCounter = new JLabel();
+		debugCounter.setFont(new Font("Tahoma", Font.PLAIN, 10));
+		debugCounter.setVisible(false);
+		headPanel.add(debugCounter);
 
 	}
 	
@@ -264,14 +317,14 @@ public class GUI extends JFrame {
 		tamoImagePanel = new JPanel();
 		tamoImagePanel.setBackground(profile.getColor());
 				
-		imageLabel = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("tamo0_default.png")));
-		backgroundImageLabel = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg4.png")));
+		tamoSprite = new TamoSprite("tamo0_default.png");
+		backgroundImageLabel = new JLabel(IconCache.get("bg4.png"));
 		
 		setBackground(profile.getCurrentBackground());
 				
 		backgroundImageLabel.setLayout(new GridBagLayout());
-		imageLabel.setSize(imageLabel.getPreferredSize());
-		backgroundImageLabel.add(imageLabel, gbc);
+		tamoSprite.setSize(tamoSprite.getPreferredSize());
+		backgroundImageLabel.add(tamoSprite, gbc);
 				
 		tamoImagePanel.add(backgroundImageLabel);
 				
@@ -287,7 +340,7 @@ public class GUI extends JFrame {
 			profileName.setFont(new Font("Tahoma", Font.BOLD, 24));
 		
 		moneyPanel = new JPanel();
-		moneyImage = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("tamo_token.png")));
+		moneyImage = new JLabel(IconCache.get("tamo_token.png"));
 		moneyLabel = new JLabel("" + profile.getMoney());
 		moneyLabel.setFont(new Font("Tahoma", Font.BOLD, 24));
 		
@@ -344,6 +397,11 @@ public class GUI extends JFrame {
 		secondTime = new JLabel("00");
 		secondTime.setFont(new Font ("Tahoma", Font.BOLD, 48));
 				
+		//Current Pomodoro phase, only shown while a Pomodoro plan runs
+		phaseLabel = new JLabel();
+		phaseLabel.setFont(new Font ("Tahoma", Font.PLAIN, 24));
+		
+		timerTextPanel.add(phaseLabel);
 		timerTextPanel.add(minuteTime);
 		timerTextPanel.add(spaceLabel);
 		timerTextPanel.add(secondTime);
@@ -368,10 +426,16 @@ public class GUI extends JFrame {
 		
 		fiveIntervalBox = new JComboBox();
 		fiveIntervalBox.setBackground(Color.WHITE);
+		
+		//Pomodoro: number of focus phases in the plan
+		pomodoroBox = new JComboBox();
+		pomodoroBox.setBackground(Color.WHITE);
+		pomodoroBox.setVisible(false);
 				
 		timerSetPanel.add(minuteBox);
 		timerSetPanel.add(secondBox);
 		timerSetPanel.add(fiveIntervalBox);
+		timerSetPanel.add(pomodoroBox);
 		
 		/*
 		 * Set Enabled Timer Method:
@@ -400,6 +464,8 @@ public class GUI extends JFrame {
 		//Init visibility
 		breakButton.setEnabled(false);
 		
+		initFocusTimer();
+		
 		//Init Timer Combo Box items
 		for(int i = 0; i <= 60; i++) {
 			if(i < 10) {
@@ -421,6 +487,12 @@ public class GUI extends JFrame {
 				fiveIntervalBox.addItem(i + ":00");
 		}
 		
+		//Init Pomodoro Combo Box items
+		for(int i = 1; i <= 8; i++) {
+			pomodoroBox.addItem(i + " x Pomodoro");
+		}
+		pomodoroBox.setSelectedIndex(PomodoroPlan.FOCUS_PER_LONG_BREAK - 1);
+		
 		//Combo box actions - update on selection
 		minuteBox.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -458,13 +530,14 @@ public class GUI extends JFrame {
 				
 				studyMin = Integer.parseInt(minuteTime.getText());
 				studySec = Integer.parseInt(secondTime.getText());
+				sessionStartMillis = System.currentTimeMillis();
+				plannedSeconds = (studyMin * 60) + studySec;
 				//System.out.println("STUDY SESSION: " + studyMin + " minutes and " + studySec + " seconds.");
-				tempSec = -1;
-				tempMin = 0;
 				
 				//Enabled and Disabled updating
 				minuteBox.setEnabled(false);
 				secondBox.setEnabled(false);
+				pomodoroBox.setEnabled(false);
 				startButton.setEnabled(false);
 				breakButton.setEnabled(true);
 				
@@ -474,68 +547,18 @@ public class GUI extends JFrame {
 				optionsButton.setEnabled(false);
 				logOutButton.setEnabled(false);
 				
-				timer = new Timer(1000, new ActionListener() {
-					
-
-					//This is the "timer" action
-					@Override
-					public void actionPerformed(ActionEvent e) {
-						
-						
-						//Set how long studied for variables
-						tempSec = tempSec + 1;
-						if(tempSec == 60) {
-							tempMin = tempMin + 1;
-							tempSec = 0;
-						}
-						
-						//System.out.println(tempMin + " minutes and " + tempSec + " seconds.");
-						
-						if(sec == 0) {
-							sec = 60;
-							min--;
-						}
-						
-						if(min < 0) {
-							//Caclulate studyTime & update stats
-							studyTimeMinutes = tempMin;
-							studyTimeSeconds = tempSec;
-							updateStudyStats(studyTimeMinutes, studyTimeSeconds);
-							studyMessage = "Session Completed\nYou focused for " + studyTimeMinutes + " minute(s) and " + studyTimeSeconds + " second(s).";
-							
-							sessionMin = sessionMin + studyTimeMinutes;
-							sessionSec = sessionSec + studyTimeSeconds;
-							
-							
-							//Display Completed message, in the future, it will do a calculation to show amount of points earned in the session
-							JOptionPane.showMessageDialog(rootPane, studyMessage, "Congratulations!", JOptionPane.INFORMATION_MESSAGE,  new ImageIcon(getClass().getClassLoader().getResource("info.png")));
-							
-							//TODO: make methods to actually update coins and total statistics
-							
-							resetTimer();
-							timer.stop();
-						} 
-						else {
-							sec--;
-							if(sec < 10) {
-								secondTime.setText("0" + sec);
-								zeroSecFlag = false;
-							}
-							else {
-								secondTime.setText("" + sec);
-							}
-							if(min < 10) {
-								minuteTime.setText("0" + min);
-								zeroMinFlag = false;
-							}
-							else {
-								minuteTime.setText("" + min);
-							}
-						}
-					}
-					
-				});
-				timer.start();
+				sessionActive = true;
+				if(profile.getSettings().getFocusMode() == 3) {
+					startPomodoro();
+					return;
+				}
+				if(profile.getSettings().getFocusMode() == 2) {
+					plannedSeconds = 0;
+					focusTimer.startCountUp();
+				} else {
+					focusTimer.start(plannedSeconds * FocusTimer.NANOS_PER_SECOND);
+				}
+				TimerService.shared().schedule(focusTimer);
 				
 			}
 			
@@ -545,24 +568,30 @@ public class GUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				studyTimeMinutes = tempMin;
-				studyTimeSeconds = tempSec;
+				sessionActive = false;
+				if(pomodoro != null) {
+					stopPomodoro();
+					return;
+				}
 				
-				//Tamo Loses happiness upon breaking session
-				if(profile.getTamo().getHappiness() > 1) {
-					profile.getTamo().setHappiness(profile.getTamo().getHappiness() - 1);
+				long focusedNanos = focusTimer.stop();
+				TimerService.shared().remove(focusTimer);
+				
+				//Stopping the count up timer ends the session normally
+				if(focusTimer.isCountUp()) {
+					completeSession(focusedNanos);
+					return;
 				}
 				
-				updateStudyStats(studyTimeMinutes, studyTimeSeconds);
-				studyMessage = "Session Focus Broke\nYou focused for " + studyTimeMinutes + " minute(s) and " + studyTimeSeconds + " second(s).";
+				//Tamo Loses happiness upon breaking session
+				TamoEconomy.breakSession(profile);
 				
-				sessionMin = sessionMin + studyTimeMinutes;
-				sessionSec = sessionSec + studyTimeSeconds;
+				creditSession(focusedNanos, false);
+				studyMessage = "Session Focus Broke\nYou focused for " + studyTimeMinutes + " minute(s) and " + studyTimeSeconds + " second(s).";
 				
 				resetTimer();
-				timer.stop();
 				
-				JOptionPane.showMessageDialog(rootPane, studyMessage, "Maybe next time...", JOptionPane.INFORMATION_MESSAGE,  new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+				JOptionPane.showMessageDialog(rootPane, studyMessage, "Maybe next time...", JOptionPane.INFORMATION_MESSAGE,  IconCache.get("info.png"));
 				
 			}
 			
@@ -582,7 +611,8 @@ public class GUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				int totalSeconds = profile.getTotalTime();
+				ProfileSnapshot stats = getPublishedProfile();
+				int totalSeconds = stats.getTotalTime();
 				
 				double totalHours = totalSeconds * 0.000277778;
 				totalHours = Math.round(totalHours * 100.0) / 100.0;	//Rounds totalHours to the nearest Hundredth
@@ -591,12 +621,22 @@ public class GUI extends JFrame {
 				double totalSessionHours = sessionTotalSeconds * 0.0002777778;
 				totalSessionHours = Math.round(totalSessionHours * 100.0) / 100.0;
 				
-				String statsMessage = profile.getSettings().getLang().getText(17) + ": " + totalHours +
-									"\n" + profile.getSettings().getLang().getText(18) + ": " + totalSessionHours +
-									"\n\n" + profile.getSettings().getLang().getText(19) + ": " + profile.getUsername() + 
-									"\n" + profile.getSettings().getLang().getText(20) + ": " + profile.getJoinDate();
+				//Aggregates of the study history, each one is a prefix sum lookup
+				StudyHistory history = getHistory();
+				long today = StudyHistory.today();
+				
+				Language lang = profile.getSettings().getLang();
+				String statsMessage = lang.getText(17) + ": " + totalHours +
+									"\n" + lang.getText(18) + ": " + totalSessionHours +
+									"\n\n" + lang.getText(44) + ": " + hours(history.getFocusSecondsOn(today)) +
+									"\n" + lang.getText(45) + ": " + hours(history.getFocusSecondsInWeek(today)) +
+									"\n" + lang.getText(46) + ": " + history.getStreak(today) + " " + lang.getText(47) + ", " + hours(history.getStreakFocusSeconds(today)) +
+									"\n" + lang.getText(48) + ": " + history.getLongestStreak() + " " + lang.getText(47) +
+									"\n" + lang.getText(49) + ": " + history.getSessionCount() + " (" + history.getCompletedCount() + " " + lang.getText(50) + ")" +
+									"\n\n" + lang.getText(19) + ": " + stats.getUsername() + 
+									"\n" + lang.getText(20) + ": " + stats.getJoinDate();
 				
-				JOptionPane.showMessageDialog(rootPane, statsMessage, profile.getSettings().getLang().getText(5), JOptionPane.INFORMATION_MESSAGE,  new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+				JOptionPane.showMessageDialog(rootPane, statsMessage, profile.getSettings().getLang().getText(5), JOptionPane.INFORMATION_MESSAGE,  IconCache.get("info.png"));
 				
 			}
 			
@@ -610,16 +650,13 @@ public class GUI extends JFrame {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				if(profile.getTamo().getHunger() < 10) {
-					foodGUI food = new foodGUI(profile, profileFile);
-					hideWindow();
+					foodGUI food = new foodGUI(profile, profileFile, GUI.this);
+					setVisible(false);
 				} else {
-					JOptionPane.showMessageDialog(null, profile.getSettings().getLang().getText(27), profile.getSettings().getLang().getText(26), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, profile.getSettings().getLang().getText(27), profile.getSettings().getLang().getText(26), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 					
 					//Earn achievement
-					if(profile.getAhm().getIndicator(6) != 1) {
-						profile.getAhm().setIndicator(6, 1);
-						achievementUpdates();
-					}
+					profile.getAhm().earn(6);
 				}
 				
 			}
@@ -630,8 +667,8 @@ public class GUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				bgGUI bg = new bgGUI(profile, profileFile);
-				hideWindow();
+				bgGUI bg = new bgGUI(profile, profileFile, GUI.this);
+				setVisible(false);
 			}
 			
 		});
@@ -641,7 +678,7 @@ public class GUI extends JFrame {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				int resultPane = JOptionPane.showConfirmDialog(null, profile.getSettings().getLang().getText(39), profile.getSettings().getLang().getText(38),
-						JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+						JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE, IconCache.get("info.png"));
 				if(resultPane == JOptionPane.OK_OPTION) {
 					welcomeGUI welcome = new welcomeGUI();
 					hideWindow();
@@ -672,8 +709,8 @@ public class GUI extends JFrame {
 
 					@Override
 					public void actionPerformed(ActionEvent e) {
-						debugGUI debug = new debugGUI(profile, profileFile);
-						hideWindow();
+						debugGUI debug = new debugGUI(profile, profileFile, GUI.this);
+						setVisible(false);
 					}
 					
 				});
@@ -681,6 +718,9 @@ public class GUI extends JFrame {
 				JComboBox focusMode = new JComboBox();
 				focusMode.addItem("5-Interval Countdown");
 				focusMode.addItem("Custom Interval Countdown");
+				focusMode.addItem("Count Up Stopwatch");
+				focusMode.addItem("Pomodoro");
+				focusMode.setSelectedIndex(profile.getSettings().getFocusMode());
 				
 				JComboBox languageBox = new JComboBox();
 				languageBox.addItem("English");
@@ -709,7 +749,7 @@ public class GUI extends JFrame {
 				op3.add(soundsLabel);
 				op3.add(soundButton);
 				
-				int result = JOptionPane.showConfirmDialog(rootPane, optionsPanel, "Options", JOptionPane.PLAIN_MESSAGE, 0, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+				int result = JOptionPane.showConfirmDialog(rootPane, optionsPanel, "Options", JOptionPane.PLAIN_MESSAGE, 0, IconCache.get("info.png"));
 				if(result == 0) {
 					//Change Settings
 					
@@ -720,12 +760,10 @@ public class GUI extends JFrame {
 					//TODO Sounds on/off
 					
 					profile.getSettings().setFocusMode(focusModeIndicator);
-					profile.getSettings().getLang().setIndicator(languageIndicator);
+					profile.getSettings().setLanguage(languageIndicator);
 					
-					//Update and Reload GUI
+					//Save, the texts and timer controls of this window follow the changed settings
 					updateUserInformationToFile();
-					GUI reloadedGUI = new GUI(profile, profileFile);
-					hideWindow();
 					
 					
 				}
@@ -839,6 +877,244 @@ public class GUI extends JFrame {
 		this.getContentPane().add(timerPanel, BorderLayout.SOUTH);
 	}
 	
+	/*
+	 * Sets up the focus timer
+	 * tick: shows the remaining time
+	 * finished: the session is completed and credited the full planned time
+	 */
+	private void initFocusTimer() {
+		focusTimer = new FocusTimer();
+		
+		//The timer is polled on the TimerService thread, the labels are updated on the EDT
+		focusTimer.setListenerExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				SwingUtilities.invokeLater(command);
+			}
+		});
+		
+		focusTimer.addListener(new FocusTimer.Listener() {
+			@Override
+			public void tick(FocusTimer t) {
+				if(!sessionActive)
+					return;
+				
+				showTime(t.isCountUp() ? t.getElapsedSeconds() : t.getRemainingSeconds());
+			}
+			
+			@Override
+			public void finished(FocusTimer t) {
+				//The session may have been broken while this call was waiting for the EDT
+				if(!sessionActive)
+					return;
+				
+				sessionActive = false;
+				completeSession(t.getElapsedNanos());
+			}
+		});
+	}
+	
+	/*
+	 * Shows the time on the timer labels, left out in low power mode (nobody can see it)
+	 */
+	private void showTime(long seconds) {
+		if(lowPower) {
+			power.countSkippedUpdate();
+			return;
+		}
+		min = (int) (seconds / 60);
+		sec = (int) (seconds % 60);
+		minuteTime.setText(min < 10 ? "0" + min : "" + min);
+		secondTime.setText(sec < 10 ? "0" + sec : "" + sec);
+	}
+	
+	/*
+	 * Low power mode while the window is minimized or hidden (e.g. while a shop is open)
+	 * F3 shows the debug counter with the measured CPU use
+	 */
+	private void initPowerActions() {
+		//The new window is visible, whatever mode a closed window left the shared TimerService in
+		TimerService.shared().setLowPower(false);
+		
+		this.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowIconified(WindowEvent e) {
+				setLowPower(true);
+			}
+			
+			@Override
+			public void windowDeiconified(WindowEvent e) {
+				setLowPower(!isShowing());
+			}
+		});
+		
+		this.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentHidden(ComponentEvent e) {
+				setLowPower(true);
+			}
+			
+			@Override
+			public void componentShown(ComponentEvent e) {
+				setLowPower((getExtendedState() & ICONIFIED) != 0);
+			}
+		});
+		
+		debugCounterTimer = new Timer(1000, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				updateDebugCounter();
+			}
+		});
+		
+		getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "debugCounter");
+		getRootPane().getActionMap().put("debugCounter", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				boolean show = !debugCounter.isVisible();
+				debugCounter.setVisible(show);
+				if(show) {
+					updateDebugCounter();
+					debugCounterTimer.start();
+				} else {
+					debugCounterTimer.stop();
+				}
+				headPanel.revalidate();
+			}
+		});
+	}
+	
+	private void updateDebugCounter() {
+		debugCounter.setText(power.getStats() + " | " + tamoSprite.getFramesPainted() + " frames, "
+				+ TimerService.shared().getPollCount() + " polls | " + IconCache.getStats());
+	}
+	
+	/*
+	 * Pauses the Tamo animation, the timer labels and the fast timer polling while nothing is visible
+	 * On restore the labels show the current time again right away.
+	 */
+	private void setLowPower(boolean low) {
+		if(disposed || lowPower == low)
+			return;
+		lowPower = low;
+		power.setLowPower(low);
+		tamoSprite.setAnimating(!low);
+		TimerService.shared().setLowPower(low);
+		
+		if(!low && sessionActive) {
+			if(pomodoro != null && pomodoro.getPhase() >= 0 && pomodoro.getPhase() < pomodoro.getPlan().getPhaseCount()) {
+				long remaining = pomodoro.getPlan().getEndNanos(pomodoro.getPhase()) - pomodoroTimer.getElapsedNanos();
+				showTime(Math.max(0, (remaining + FocusTimer.NANOS_PER_SECOND - 1) / FocusTimer.NANOS_PER_SECOND));
+			} else if(focusTimer.isRunning()) {
+				showTime(focusTimer.isCountUp() ? focusTimer.getElapsedSeconds() : focusTimer.getRemainingSeconds());
+			}
+		}
+	}
+	
+	/*
+	 * Pomodoro focus mode: plans the whole block (focus phases with short and long breaks) and runs it
+	 * Every focus phase is credited as its own session when it ends, breaks are not credited.
+	 * The GUI is only reset when the whole plan is over.
+	 */
+	private void startPomodoro() {
+		int focusMinutes = Integer.parseInt(fiveIntervalBox.getSelectedItem().toString().substring(0, 2));
+		PomodoroPlan plan = PomodoroPlan.standard(focusMinutes, pomodoroBox.getSelectedIndex() + 1);
+		
+		if(pomodoroTimer == null) {
+			pomodoroTimer = new FocusTimer();
+			pomodoroTimer.setListenerExecutor(focusTimer.getListenerExecutor());
+		}
+		
+		pomodoro = new PomodoroScheduler(plan, pomodoroTimer, new PomodoroScheduler.Listener() {
+			@Override
+			public void tick(PomodoroScheduler scheduler, int phase, long remainingSeconds) {
+				showTime(remainingSeconds);
+			}
+			
+			@Override
+			public void phaseStarted(PomodoroScheduler scheduler, int phase) {
+				PomodoroPlan plan = scheduler.getPlan();
+				int number = plan.getFocusNumber(phase);
+				if(plan.getKind(phase) == PomodoroPlan.FOCUS) {
+					phaseLabel.setText("Focus " + number + "/" + plan.getFocusPhaseCount());
+					sessionStartMillis = System.currentTimeMillis();
+					plannedSeconds = (int) (plan.getDurationNanos(phase) / FocusTimer.NANOS_PER_SECOND);
+					updateTamoImage(profile.getTamo().getId(), 4);
+				} else {
+					phaseLabel.setText(plan.getKind(phase) == PomodoroPlan.LONG_BREAK ? "Long Break" : "Short Break");
+					updateTamoImage(profile.getTamo().getId(), 0);
+				}
+			}
+			
+			@Override
+			public void phaseEnded(PomodoroScheduler scheduler, int phase, long elapsedNanos, boolean completed) {
+				if(scheduler.getPlan().getKind(phase) != PomodoroPlan.FOCUS)
+					return;
+				
+				//Tamo Loses happiness upon breaking session
+				if(!completed)
+					TamoEconomy.breakSession(profile);
+				creditSession(elapsedNanos, completed);
+			}
+			
+			@Override
+			public void planFinished(PomodoroScheduler scheduler) {
+				sessionActive = false;
+				pomodoro = null;
+				phaseLabel.setText("");
+				resetTimer();
+				
+				studyMessage = "Pomodoro Completed\nYou focused for " + scheduler.getPlan().getFocusPhaseCount() + " Pomodoro(s).";
+				JOptionPane.showMessageDialog(rootPane, studyMessage, "Congratulations!", JOptionPane.INFORMATION_MESSAGE,  IconCache.get("info.png"));
+			}
+		});
+		pomodoro.start();
+	}
+	
+	/*
+	 * The user stopped the Pomodoro plan, a running focus phase counts as broken
+	 */
+	private void stopPomodoro() {
+		PomodoroScheduler stopped = pomodoro;
+		pomodoro = null;
+		stopped.stop();
+		phaseLabel.setText("");
+		resetTimer();
+		
+		studyMessage = "Pomodoro Stopped\nYou focused for " + sessionMin + " minute(s) and " + sessionSec + " second(s) in this session.";
+		JOptionPane.showMessageDialog(rootPane, studyMessage, "Maybe next time...", JOptionPane.INFORMATION_MESSAGE,  IconCache.get("info.png"));
+	}
+	
+	/*
+	 * The session is completed: credits the time and congratulates the user
+	 */
+	private void completeSession(long focusedNanos) {
+		creditSession(focusedNanos, true);
+		studyMessage = "Session Completed\nYou focused for " + studyTimeMinutes + " minute(s) and " + studyTimeSeconds + " second(s).";
+		
+		resetTimer();
+		
+		//Display Completed message, in the future, it will do a calculation to show amount of points earned in the session
+		JOptionPane.showMessageDialog(rootPane, studyMessage, "Congratulations!", JOptionPane.INFORMATION_MESSAGE,  IconCache.get("info.png"));
+	}
+	
+	/*
+	 * Credits the focused time of a session to the profile
+	 * Time is kept in nanoseconds until here, the part below a whole second is carried over to the next session
+	 */
+	private void creditSession(long focusedNanos, boolean completed) {
+		long total = focusedNanos + uncreditedNanos;
+		long focusedSeconds = total / FocusTimer.NANOS_PER_SECOND;
+		uncreditedNanos = total % FocusTimer.NANOS_PER_SECOND;
+		
+		studyTimeMinutes = (int) (focusedSeconds / 60);
+		studyTimeSeconds = (int) (focusedSeconds % 60);
+		updateStudyStats(studyTimeMinutes, studyTimeSeconds, completed);
+		
+		sessionMin = sessionMin + studyTimeMinutes;
+		sessionSec = sessionSec + studyTimeSeconds;
+	}
+	
 	/*
 	 * Method resets the timer
 	 */
@@ -846,6 +1122,9 @@ public class GUI extends JFrame {
 		min = 0;
 		sec = 0;
 		
+		//The session is over, the Tamo shows its mood again
+		updateTamoMood();
+		
 		minuteTime.setText("0" + min);
 		secondTime.setText("0" + sec);
 		
@@ -855,6 +1134,7 @@ public class GUI extends JFrame {
 		//stop 
 		minuteBox.setEnabled(true);
 		secondBox.setEnabled(true);
+		pomodoroBox.setEnabled(true);
 		startButton.setEnabled(true);
 		breakButton.setEnabled(false);
 		
@@ -870,168 +1150,225 @@ public class GUI extends JFrame {
 	/*
 	 * Updates the profile that is in use to the profiles text file
 	 * 
-	 * HOW: Rewrites the changeable values to the file.
-	 * This includes: totalTime, totalMoney, tamoLevel, tamoHappiness, tamoHunger.
-	 * 
-	 * This is for local purposes, assuming that the user does not have a lot of locally stored profiles.
-	 * In the future, their may be a profile limit?
+	 * HOW: Hands a full snapshot of the profile to the PersistenceService, which writes it atomically
+	 * on its own thread and then empties the journal. This is used when the GUI is (re)loaded.
+	 * Events during the session (study sessions, achievements) are journaled instead, see journalEvent.
 	 * 
 	 * But eventually when added to a database, this method of updating system information will not be used to
 	 * rewrite the locally stored profile to the database. (because it would be inefficient then)
 	 */
-	private void updateUserInformationToFile() {
-		try {
-			//BufferedReader file = new BufferedReader(new FileReader("profiles.txt"));
-			BufferedReader file = new BufferedReader(new FileReader(profileFile));
-			StringBuffer inputBuffer = new StringBuffer();
-			String line;
-			
-			while((line = (file.readLine())) != null) {
-				inputBuffer.append(line);
-			}
-			
-			file.close();
-			String inputStr = inputBuffer.toString();
-			String decryptedString = encryption.decrypt(inputStr);
-			
-			//System.out.println(inputStr); //DEBUG TO DISPLAY ORIGINAL FILE
-			
-			//split the string, by comma so username can be identified
-			String[] inputtedString = decryptedString.split(",");
-			
-			
-			//I didn't know where to put the code to update the level, so it's here:
-			//Every 24 hours, your tamo will gain 1 level
-			int new_level = (profile.getTotalTime() / 86400);
-			profile.getTamo().setLevel(new_level);
-			
-			/*
-			 * Rewriting Profile Information
-			 */
-			
-			//Update login date
-			//System.out.println("DEBUG: Rewriting newloginString");
-			if(profile.getNewLoginString() == null) {
-				
-			} else {
-			inputtedString[2] = profile.getNewLoginString();
-			}
-			
-			//Rewrite TotalTime
-			//System.out.println("DEBUG: Rewriting Total Time = " + profile.getTotalTime());
-			inputtedString[3] = String.valueOf(profile.getTotalTime());
-			
-			//Rewrite TotalMoney
-			//System.out.println("DEBUG: Rewriting Total Money = " + profile.getMoney());
-			inputtedString[4] = String.valueOf(profile.getMoney());
-			
-			//Rewrite currentbackground
-			//System.out.println("DEBUG: Rewriting current bg");
-			inputtedString[5] = String.valueOf(profile.getCurrentBackground());
-			
-			//System.out.println("DEBUG: Rewriting guiColor");
-			inputtedString[6] = profile.getGuiColor();
-			
-			/*
-			 * Rewriting Profile Settings
-			 */
-			
-			inputtedString[8] = String.valueOf(profile.getSettings().getFocusMode());
-			inputtedString[9] = String.valueOf(profile.getSettings().getLang().getIndicator());
-			inputtedString[10] = String.valueOf(profile.getSettings().getSessionSounds());
-			inputtedString[11] = String.valueOf(profile.getSettings().getBackgroundSounds());
-			
-			/*
-			 * Rewriting Tamo Information
-			 */
-			
-			//Rewrite Tamo Name
-			//System.out.println("DEBUG: Rewriting name = " + profile.getTamo().getName());
-			inputtedString[12] = profile.getTamo().getName();
-			
-			//System.out.println("DEBUG: Rewriting tamo ID");
-			inputtedString[13] = String.valueOf(profile.getTamo().getId());
-			
-			//System.out.println("DEBUG: Rewriting Happiness = " + profile.getTamo().getHappiness());
-			inputtedString[14] = String.valueOf(profile.getTamo().getHappiness());
-			
-			//System.out.println("DEBUG: Rewriting Hunger to = " + profile.getTamo().getHunger());
-			inputtedString[15] = String.valueOf(profile.getTamo().getHunger());
-			
-			/*
-			 * Rewriting Achievement String
-			 */
-			
-			inputtedString[16] = profile.getAhm().getAhmString();
-			
-			//join the string back together
-			decryptedString = String.join(",", inputtedString);
-			//System.out.println("after rewrite: " + inputStr); //DEBUG TO DISPLAY WRITTEN FILE
-			
-			String encryptedStr = encryption.encrypt(decryptedString);
-			
-			//FileOutputStream fileOut = new FileOutputStream("profiles.txt");
-			FileOutputStream fileOut = new FileOutputStream(profileFile);
-			fileOut.write(encryptedStr.getBytes());
-			fileOut.close();
-			
-			
-			}
-		catch (Exception e) {
-			System.out.println("Updating user information failed due to exception." + e);
-			}
-		}
+	private CompletableFuture<Void> updateUserInformationToFile() {
+		if(profileFile == null)
+			return CompletableFuture.completedFuture(null);
+		
+		updateTamoLevel();
+		return PersistenceService.saveSnapshot(profileFile, publishProfile());
+	}
+	
+	/*
+	 * Hands a small journal record for the event to the PersistenceService
+	 * When the journal is large enough, it is compacted into the profile file in the background
+	 * Profiles in a profile store are rewritten in their fixed-size slot instead
+	 */
+	private CompletableFuture<Void> journalEvent(int type) {
+		if(profileFile == null)
+			return CompletableFuture.completedFuture(null);
 		
+		updateTamoLevel();
+		return PersistenceService.saveEvent(profileFile, type, publishProfile());
+	}
+	
+	/*
+	 * Takes an immutable snapshot of the profile and publishes it as the newest version
+	 * Every published version has the next save generation (see ProfileJournal)
+	 * Only the EDT changes the profile, so only the EDT publishes
+	 */
+	private ProfileSnapshot publishProfile() {
+		profile.setGeneration(profile.getGeneration() + 1);
+		ProfileSnapshot snapshot = ProfileSnapshot.of(profile);
+		publishedProfile.set(snapshot);
+		return snapshot;
+	}
+	
+	/*
+	 * Newest published version of the profile, safe to read from any thread
+	 */
+	public ProfileSnapshot getPublishedProfile() {
+		ProfileSnapshot snapshot = publishedProfile.get();
+		return snapshot != null ? snapshot : ProfileSnapshot.of(profile);
+	}
+	
+	/*
+	 * Every 24 hours, your tamo will gain 1 level
+	 */
+	private void updateTamoLevel() {
+		profile.getTamo().setLevel(TamoEconomy.level(profile.getTotalTime()));
+	}
+		
+	
 	
+	/*
+	 * Study history of the profile (already loaded by welcomeGUI.openProfile)
+	 */
+	private StudyHistory getHistory() {
+		if(history == null)
+			history = StudyHistory.open(profileFile, profile.getUsername());
+		return history;
+	}
 	
 	/*
-	 * Updates the totalTime studied for the user
+	 * Seconds as hours, rounded to the nearest Hundredth
 	 */
-	public void updateStudyStats(int min, int sec) {
+	private static double hours(long seconds) {
+		return Math.round(seconds * 0.000277778 * 100.0) / 100.0;
+	}
+	
+	/*
+	 * Updates the totalTime studied for the user, and records the session in the study history
+	 * completed: false when the session was broken
+	 */
+	public void updateStudyStats(int min, int sec, boolean completed) {
 		int totalSeconds = (min * 60) + sec;
-		profile.setTotalTime(profile.getTotalTime() + totalSeconds);
-		
-		//Give money, every 3600 seconds (1 hour) = 50 Tamo Tokens
-		//Dev Note: This means that for every 72 seconds, 1 Tamo Token is earned.
-		int earnedSessionMoney = ((50 * totalSeconds) / 3600);
-		profile.setMoney(profile.getMoney() + earnedSessionMoney);
-		
-		//Update TamoHappiness, tamoHappiness will increment by one for every half hour studied.
-		int heartsEarned = 0;
-		if(profile.getTamo().getHappiness() == 10) {
-			// The user exceeded the amount of happiness, no happiness is rewarded since it has already been made.
-		} else {
-			heartsEarned = (totalSeconds / 1800);
-			if(profile.getTamo().getHappiness() + heartsEarned >= 10)
-				profile.getTamo().setHappiness(10);
-			else
-				profile.getTamo().setHappiness(profile.getTamo().getHappiness() + heartsEarned);
-		}
 		
-		updateGUI();
+		//Tokens, happiness and level, see TamoEconomy
+		int earnedSessionMoney = TamoEconomy.study(profile, totalSeconds);
 		
-		updateUserInformationToFile();
+		getHistory().record(sessionStartMillis, plannedSeconds, totalSeconds, completed, earnedSessionMoney);
+		journalEvent(ProfileJournal.SESSION);
 	}
 	
 	/*
-	 * Updates the GUI components
+	 * Updates every GUI component, used when the window is built
+	 * Afterwards the components follow the profile's change events, see subscribeWidgets
 	 */
 	public void updateGUI() {
-		//Update Last Login Date and compare to update happiness and hunger
-		//TODO
+		changes.updateAll();
+	}
+	
+	/*
+	 * Every widget subscribes the update of what it shows to the properties it depends on
+	 * Replacing the whole Tamo or settings object updates everything that shows them.
+	 */
+	private void subscribeWidgets() {
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				moneyLabel.setText("" + profile.getMoney());
+			}
+		}, Profile.MONEY);
 		
-		//Update Labels
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				tamoName.setText("Tamo: " + profile.getTamo().getName());
+			}
+		}, Tamo.NAME, Profile.TAMO);
 		
-		moneyLabel.setText("" + profile.getMoney());
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				tamoLevel.setText(profile.getSettings().getLang().getText(2) + ": " + profile.getTamo().getLevel());
+			}
+		}, Tamo.LEVEL, Profile.TAMO, ProfileSettings.LANGUAGE, Profile.SETTINGS);
 		
-		tamoLevel.setText(profile.getSettings().getLang().getText(2) + ": " + profile.getTamo().getLevel());
-		//tamoHappiness.setText("Happiness: " + profile.getTamo().getHappiness() + "/10");
-		updateTamoHappiness(profile.getTamo().getHappiness());
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateTamoHappiness(profile.getTamo().getHappiness());
+			}
+		}, Tamo.HAPPINESS, Profile.TAMO);
 		
-		//tamoHunger.setText("Hunger: " + profile.getTamo().getHunger()  + "/10");
-		updateTamoHunger(profile.getTamo().getHunger());
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateTamoHunger(profile.getTamo().getHunger());
+			}
+		}, Tamo.HUNGER, Profile.TAMO);
+		
+		//During a session the Tamo keeps its focus image
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				if(!sessionActive)
+					updateTamoMood();
+			}
+		}, Tamo.HAPPINESS, Tamo.HUNGER, Tamo.ID, Profile.TAMO);
+		
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				setBackground(profile.getCurrentBackground());
+			}
+		}, Profile.BACKGROUND);
+		
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateColor();
+			}
+		}, Profile.GUI_COLOR);
+		
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateProfileName();
+			}
+		}, Profile.USERNAME, ProfileSettings.LANGUAGE, Profile.SETTINGS);
+		
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateTexts();
+			}
+		}, ProfileSettings.LANGUAGE, Profile.SETTINGS);
 		
-		//Update Tamo Image
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				updateFocusMode();
+			}
+		}, ProfileSettings.FOCUS_MODE, Profile.SETTINGS);
+		
+		//Achievements are journaled once per frame, and only if one was earned since the last journal
+		changes.subscribe(new Runnable() {
+			@Override
+			public void run() {
+				if(profile.getAhm().getBits() != journaledAhm) {
+					journaledAhm = profile.getAhm().getBits();
+					journalEvent(ProfileJournal.ACHIEVEMENT);
+				}
+			}
+		}, Achievements.ACHIEVEMENT, Profile.ACHIEVEMENTS);
+		
+		profile.addPropertyChangeListener(changes);
+	}
+	
+	/*
+	 * A shop changed the profile (the widgets already follow the changes), journals the purchase
+	 */
+	public void purchased() {
+		journalEvent(ProfileJournal.PURCHASE);
+	}
+	
+	/*
+	 * Saves a full snapshot of the profile, e.g. after it was edited in the debug menu
+	 */
+	public CompletableFuture<Void> saveProfile() {
+		return updateUserInformationToFile();
+	}
+	
+	/*
+	 * Shows the window again after a shop or dialog was closed
+	 */
+	public void showWindow() {
+		this.setVisible(true);
+		this.toFront();
+	}
+	
+	/*
+	 * Chooses the Tamo's image from its happiness and hunger
+	 */
+	private void updateTamoMood() {
 		int happy = profile.getTamo().getHappiness();
 		int calcHung = profile.getTamo().getHunger();
 		boolean hungry = true;
@@ -1053,21 +1390,65 @@ public class GUI extends JFrame {
 		} else if (happy >= 1 && happy <= 3) {
 			updateTamoImage(profile.getTamo().getId(), 2);
 		}
+	}
+	
+	/*
+	 * Shows the timer controls of the focus mode
+	 */
+	private void updateFocusMode() {
+		int mode = profile.getSettings().getFocusMode();
+		
+		//0: 5 minute intervals, 1: custom minutes and seconds, 2: count up (nothing to set, starts at 00:00)
+		//3: Pomodoro, length of a focus phase and number of focus phases
+		minuteBox.setVisible(mode == 1);
+		secondBox.setVisible(mode == 1);
+		fiveIntervalBox.setVisible(mode == 0 || mode == 3);
+		pomodoroBox.setVisible(mode == 3);
+		timerSetPanel.revalidate();
+	}
+	
+	/*
+	 * Sets every text of the window in the profile's language
+	 */
+	private void updateTexts() {
+		Language lang = profile.getSettings().getLang();
+		
+		statsButton.setText(lang.getText(5));
+		optionsButton.setText(lang.getText(8));
+		ahmButton.setText(lang.getText(21));
+		feedButton.setText(lang.getText(6));
+		backgroundShopButton.setText(lang.getText(7));
+		logOutButton.setText(lang.getText(9));
+		startButton.setText(lang.getText(3));
+		breakButton.setText(lang.getText(4));
+	}
+	
+	/*
+	 * Greeting with the username, in the profile's language
+	 */
+	private void updateProfileName() {
+		Language lang = profile.getSettings().getLang();
 		
-		
-		//Update Study Mode
-		if(profile.getSettings().getFocusMode() == 0) {
-			minuteBox.setVisible(false);
-			secondBox.setVisible(false);
-			fiveIntervalBox.setVisible(true);
-		}
-		
-		if(profile.getSettings().getFocusMode() == 1) {
-			minuteBox.setVisible(true);
-			secondBox.setVisible(true);
-			fiveIntervalBox.setVisible(false);
+		profileName.setText(lang.getText(1) + ", " + profile.getUsername());
+		if(lang.getIndicator() == 4 || lang.getIndicator() == 7)
+			profileName.setFont(new Font("Times New Roman", Font.PLAIN, 24));
+		else
+			profileName.setFont(new Font("Tahoma", Font.BOLD, 24));
+	}
+	
+	/*
+	 * Paints the panels (and the dialogs opened from now on) in the profile's gui color
+	 */
+	private void updateColor() {
+		Color color = profile.getColor();
+		UIManager.put("OptionPane.background", color);
+		UIManager.put("Panel.background", color);
+		
+		JPanel[] panels = {headPanel, tamoPanel, tamoImagePanel, tamoStatsPanel, moneyPanel,
+				timerPanel, timerTextPanel, timerSetPanel, timerButtonPanel};
+		for(JPanel panel : panels) {
+			panel.setBackground(color);
 		}
-		
 	}
 	
 	/*
@@ -1081,21 +1462,31 @@ public class GUI extends JFrame {
 	 */
 	public void updateTamoImage(int tamoID, int num) {
 			if(num == 0) 
-				imageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("tamo"+tamoID+"_default.gif")));
+				tamoSprite.setSprite("tamo"+tamoID+"_default.gif");
 			else if(num == 1)
-				imageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("tamo"+tamoID+"_happy.gif")));
+				tamoSprite.setSprite("tamo"+tamoID+"_happy.gif");
 			else if(num == 2)
-				imageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("tamo"+tamoID+"_sad.png")));
+				tamoSprite.setSprite("tamo"+tamoID+"_sad.png");
 			else if(num == 3)
-				imageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("tamo"+tamoID+"_hungry.png")));
+				tamoSprite.setSprite("tamo"+tamoID+"_hungry.png");
 			else if(num == 4)
-				imageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("tamo"+tamoID+"_focus.png")));
+				tamoSprite.setSprite("tamo"+tamoID+"_focus.png");
 	}
 
 	/*
 	 * Hides the window
 	 */
 	public void hideWindow() {
+		profile.removePropertyChangeListener(changes);
+		if(achievements != null)
+			achievements.detach();
+		
+		//The closed window stops its own timers and must not leave the TimerService in low power mode
+		disposed = true;
+		tamoSprite.setAnimating(false);
+		if(debugCounterTimer != null)
+			debugCounterTimer.stop();
+		TimerService.shared().setLowPower(false);
 		this.setVisible(false);
 		this.dispose();
 	}
@@ -1105,157 +1496,46 @@ public class GUI extends JFrame {
 	 */
 	public void setBackground(int num) {
 		if(num == 0)
-			backgroundImageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("bg.png")));
+			backgroundImageLabel.setIcon(IconCache.get("bg.png"));
 		else if(num == 1)
-			backgroundImageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("bg2.png")));
+			backgroundImageLabel.setIcon(IconCache.get("bg2.png"));
 		else if(num == 2)
-			backgroundImageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("bg3.png")));
+			backgroundImageLabel.setIcon(IconCache.get("bg3.png"));
 		else if(num == 3)
-			backgroundImageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("bg4.png")));
+			backgroundImageLabel.setIcon(IconCache.get("bg4.png"));
 		else if(num == 4)
-			backgroundImageLabel.setIcon(new ImageIcon(getClass().getClassLoader().getResource("bg5.png")));
+			backgroundImageLabel.setIcon(IconCache.get("bg5.png"));
 	}
 	
 	/*
 	 * Updates values based off of log in date
+	 * The hunger and happiness drop with the days since the last login (see TamoDecay),
+	 * after 30 days away the Tamo dies. Today becomes the last login.
+	 * 
+	 * Profiles saved before the logins were tracked never had their last login updated, it is still the day
+	 * they were created. Until the profile has a login recorded before today (see LoginStreak) the last login
+	 * can't be trusted, so there is no decay and the last login is only set to today.
 	 */
-	public void updateHappyHunger() {
-		//System.out.println("RUNNING UPDATEHAPPYHUNGER METHOD\n--------------------------");
-		
-		//System.out.println("DEBUG: Hunger before updateHappyHunger = " + profile.getTamo().getHunger());
-		//System.out.println("DEBUG: Happiness before updateHappyHunger = " + profile.getTamo().getHappiness());
-		
-		//will grab profile.lastLoginString and compare it to profile.newLoginString
-		boolean first_day = true;
-		LocalDate end = null;
-		LocalDate start = null;
-		
-		try {
-			start = LocalDate.parse(profile.getLastLoginString());
-			end = LocalDate.parse(profile.getNewLoginString());
-			first_day = false;
-		} catch (Exception e) {
-			//System.out.println("NOTICE: Profile does not have a last Login string, exception *first day of profile*");
-		}
-		
-		
-		if(first_day == false) {
-			long diff = ChronoUnit.DAYS.between(start,end);
-			
-			//System.out.println("DEBUG: DIFFERENCE BETWEEN DAYS IS " + diff);
-		if(diff == 0) {
-			//If the user logs in on the same day, no changes will occur.
-			//System.out.println("DEBUG: Running difference = 0");
-			
-		} 
-		
-		
-		if(diff == 1) {
-			//If the user is logging in on a consecutive day, hunger will deplete 2 hunger points
-			//System.out.println("DEBUG: Running difference = 1:");
-			int hungerAfterDepletion = profile.getTamo().getHunger() - 2;
-			//System.out.println("HUNGER AFTER DEPLETION = " + hungerAfterDepletion);
-			int happinessAfterDepletion = profile.getTamo().getHappiness() - 2;
-			//System.out.println("HAPPY AFTER DEPLETION = " + happinessAfterDepletion);
-			
-			if(underEqualZero(hungerAfterDepletion)) {
-				profile.getTamo().setHunger(0);
-			} else {
-				profile.getTamo().setHunger(hungerAfterDepletion);
-			}
-			
-			if(underEqualZero(happinessAfterDepletion)) {
-				profile.getTamo().setHappiness(1);
-			} else {
-				profile.getTamo().setHappiness(happinessAfterDepletion);
-			}
-		} 
-		
-		
-		if(diff > 1 && diff < 4) {
-			//If the user is logging in between 2 and 3 days, hunger will deplete 4, happiness deplete 2
-			//System.out.println("DEBUG: Running difference = 2-3:");
-			int hungerAfterDepletion = (profile.getTamo().getHunger() - 4);
-			//System.out.println("HUNGER AFTER DEPLETION = " + hungerAfterDepletion);
-			int happinessAfterDepletion = profile.getTamo().getHappiness() - 3;
-			//System.out.println("HAPPY AFTER DEPLETION = " + happinessAfterDepletion);
-			
-			//System.out.println("HUNGER UNDEREQUAL ZERO VALUE: " + underEqualZero(hungerAfterDepletion));
-			if(underEqualZero(hungerAfterDepletion)) {
-				//System.out.println("SETTING HUNGER TO ZERO");
-				profile.getTamo().setHunger(0);
-			} else { 
-				//System.out.println("SETTING HUNGER TO: " + hungerAfterDepletion);
-				profile.getTamo().setHunger(hungerAfterDepletion);
-			}
-			
-			if(underEqualZero(happinessAfterDepletion)) {
-				profile.getTamo().setHappiness(1);
-			} else {
-				profile.getTamo().setHappiness(happinessAfterDepletion);
-			}
-		}
-			
-		if(diff > 3 && diff < 8) {
-			//If the user is logging in between 4 and 7 days, hunger will deplete 5, happiness deplete 3
-			//System.out.println("Running difference = 4-7:");
-			int hungerAfterDepletion = profile.getTamo().getHunger() - 5;
-			//System.out.println("HUNGER AFTER DEPLETION = " + hungerAfterDepletion);
-			int happinessAfterDepletion = profile.getTamo().getHappiness() - 4;
-			//System.out.println("HAPPY AFTER DEPLETION = " + happinessAfterDepletion);
-			
-			if(underEqualZero(hungerAfterDepletion)) {
-				profile.getTamo().setHunger(0);
-			} else {
-				profile.getTamo().setHunger(hungerAfterDepletion);
-			}
-			
-			if(underEqualZero(happinessAfterDepletion)) {
-				profile.getTamo().setHappiness(1);
-			} else {
-				profile.getTamo().setHappiness(happinessAfterDepletion);
+	public void updateHappyHunger(LoginStreak logins) {
+		LocalDate today = LocalDate.now();
+		long daysAway = 0;
+		//No last login yet (or one that can't be read), first day of the profile
+		if(profile.getLastLoginString() != null) {
+			try {
+				daysAway = today.toEpochDay() - LocalDate.parse(profile.getLastLoginString()).toEpochDay();
+			} catch (DateTimeParseException e) {
+				daysAway = 0;
 			}
 		}
+		if(!logins.hasLoginBefore(today.toEpochDay()))
+			daysAway = 0;
 		
-		if(diff >= 8 && diff < 30) {
-			//If the user does not log in for a week, hunger and happiness will be both depleted entirely
-			//System.out.println("Running difference = 7+:");
-			profile.getTamo().setHunger(0);
-			profile.getTamo().setHappiness(1);
-		}
-
-		if(diff >= 30) {
-			//System.out.println("Running difference = 30+:");
-			//If the user does not log in for a month, the Tamo will reset (die).
-			//Essentially the tamo data will be wiped and user will start over
-			//all of the info will be reset, the tamo will be wiped, and new tamo will be assigned
-			//will write to the profile file
-			//profile.setWarnings(3);
+		if(TamoDecay.decay(profile.getTamo(), daysAway))
 			this.death = true;
-			
-		}
-		
-		//System.out.println("DEBUG HUNGER AFTER FUNCTION: " + profile.getTamo().getHunger());
-		//System.out.println("DEBUG HAPPY AFTER FUNCTION: " + profile.getTamo().getHappiness());
 		
-		//Set the new date equal to the previous date here
-		profile.setLast_login_date(profile.getNew_login_date());
+		profile.setNewLoginString(today.toString());
+		profile.setLast_login_date(new Date());
 		profile.setLastLoginString(profile.getNewLoginString());
-		
-		if(profile.getTamo().getHappiness() > 10)
-			profile.getTamo().setHappiness(10);
-		
-		}
-		
-	}
-	
-	/*
-	 * Method that returns if a number is less than or equal to zero
-	 */
-	public boolean underEqualZero(int num) {
-		if(num <= 0) {
-			return true;
-		} else return false;
 	}
 	
 	/*
@@ -1267,7 +1547,7 @@ public class GUI extends JFrame {
 		
 		for(int i = 1; i <= happiness; i++) {
 			if(i == happiness) {
-				tamoHappiness.setIcon(new ImageIcon(getClass().getClassLoader().getResource("happy" + str +".png")));
+				tamoHappiness.setIcon(IconCache.get("happy" + str +".png"));
 			}
 		}
 	}
@@ -1277,7 +1557,7 @@ public class GUI extends JFrame {
 		
 		for(int i = 0; i <= hunger; i++) {
 			if(i == hunger) {
-				tamoHunger.setIcon(new ImageIcon(getClass().getClassLoader().getResource("hungry" + str +".png")));
+				tamoHunger.setIcon(IconCache.get("hungry" + str +".png"));
 			}
 		}
 	}
@@ -1303,7 +1583,7 @@ public class GUI extends JFrame {
 		
 		Object[] options = {"Reset"};
 		
-		int resultPane = JOptionPane.showOptionDialog(null, deathPanel, "Tamo Death", JOptionPane.PLAIN_MESSAGE, JOptionPane.QUESTION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")), options, options[0]);
+		int resultPane = JOptionPane.showOptionDialog(null, deathPanel, "Tamo Death", JOptionPane.PLAIN_MESSAGE, JOptionPane.QUESTION_MESSAGE, IconCache.get("info.png"), options, options[0]);
 		if(resultPane == 0) {
 			//System.out.println("Resetting Tamo");
 			resetTamo(newTamoNameField.getText());
@@ -1318,18 +1598,9 @@ public class GUI extends JFrame {
 	
 	//Resets TamoStudy, will occur on after TamoDeath
 	public void resetTamo(String name) {
-		profile.setTotalTime(0);
-		profile.setMoney(0);
-		profile.setCurrentBackground(0);
-		profile.getTamo().setName(name);
-		profile.getTamo().setHappiness(5);
-		profile.getTamo().setHunger(5);
-		profile.getTamo().setId(ThreadLocalRandom.current().nextInt(1, 3 + 1));
+		TamoEconomy.resetTamo(profile, name, ThreadLocalRandom.current().nextInt(1, 3 + 1));
 		
 		updateUserInformationToFile();
-		hideWindow();
-		
-		GUI newGUI = new GUI(profile);
 	}
 	
 	public int getFocusIndicator(String stringIndicator) {
@@ -1337,6 +1608,10 @@ public class GUI extends JFrame {
 			return 0;
 		if(stringIndicator.equals("Custom Interval Countdown"))
 			return 1;
+		if(stringIndicator.equals("Count Up Stopwatch"))
+			return 2;
+		if(stringIndicator.equals("Pomodoro"))
+			return 3;
 		
 		
 		return 0;
@@ -1363,39 +1638,4 @@ public class GUI extends JFrame {
 		return 0;
 	}
 	
-	/*
-	 * This method checks for updates for the achievements
-	 * Then updates them to the string respectively
-	 */
-	public void achievementUpdates() {
-		//Reach 3 hours focus time
-		if(profile.getTotalTime() >= 10800 && profile.getAhm().getIndicator(0) != 1) {
-			profile.getAhm().setIndicator(0,1);
-		}
-		
-		//Reach 1 day focus time
-		if(profile.getTotalTime() >= 86400 && profile.getAhm().getIndicator(1) != 1) {
-			profile.getAhm().setIndicator(1,1);
-		}
-		
-		//Reach 7 day focus time
-		if(profile.getTotalTime() >= 604800 && profile.getAhm().getIndicator(2) != 1) {
-			profile.getAhm().setIndicator(2,1);
-		}
-		
-		/*
-		 * Background achievements are covered in bgGUI
-		 * TODO Updated profile version
-		 * Food Shop achievement covered in that line of code
-		 * Happiness achievement in updateHappyHunger
-		 * TODO implement login ones (perhaps in future updates
-		 */
-		
-		if(profile.getTamo().getHappiness() > 9 && profile.getAhm().getIndicator(7) != 1) {
-			profile.getAhm().setIndicator(7, 1);
-		}
-		
-		updateUserInformationToFile();
-	}
-	
 }
@@ -0,0 +1,213 @@
+/**
+ * @description Days on which the profile was logged into, as a bitmap
+ *
+ * @purpose The "Dedication" achievements (7, 14 and 30 days in a row) need to know on which days the
+ * user logged in, but the profile only keeps the last login date. Every login day is now one bit of a
+ * bitmap (bit d is the day firstDay + d), kept in "<profile>.logins"
+ * (see ProfileStore.companionFile). A year of logins takes 48 bytes.
+ *
+ * The current and the longest streak are answered by scanning whole 64-bit words: a word full of
+ * logins is 64 days of streak at once, and the end of a streak inside a word is found with one
+ * leading/trailing zero count instead of comparing dates day by day.
+ *
+ * File layout (big endian): firstDay(long), then the words of the bitmap (long)
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class LoginStreak {
+
+	//Logins that were loaded during this run, so rebuilding a window doesn't read the file again
+	private static final Map<String, LoginStreak> loaded = new HashMap<String, LoginStreak>();
+
+	private File loginFile;
+
+	private long firstDay = Long.MIN_VALUE;
+	private long[] words = new long[0];
+
+	/*
+	 * Logins of the profile with the username, read from the file the first time they are needed
+	 * Reading waits for queued saves, so the first call is made off the EDT (see welcomeGUI.openProfile).
+	 * profileFile may be null, then the logins are only kept in memory
+	 */
+	public static synchronized LoginStreak open(File profileFile, String username) {
+		if(profileFile == null)
+			return new LoginStreak(null);
+
+		File loginFile = ProfileStore.companionFile(profileFile, username, ".logins");
+		String key = loginFile.getAbsolutePath();
+		LoginStreak logins = loaded.get(key);
+		if(logins == null) {
+			logins = new LoginStreak(loginFile);
+			loaded.put(key, logins);
+		}
+		return logins;
+	}
+
+	private LoginStreak(File loginFile) {
+		this.loginFile = loginFile;
+		if(loginFile == null)
+			return;
+
+		try {
+			load();
+		} catch (IOException e) {
+			System.out.println("Loading login streak failed due to exception." + e);
+		}
+	}
+
+	/*
+	 * Records a login on the day (epoch day), returns the streak ending at the day
+	 * The bitmap is only written when the day was not recorded yet.
+	 */
+	public int recordLogin(long day) {
+		if(!isLoggedIn(day)) {
+			set(day);
+			if(loginFile != null)
+				ProfileWriter.writeLater(loginFile, encode(), null);
+		}
+		return getStreak(day);
+	}
+
+	public boolean isLoggedIn(long day) {
+		long d = day - firstDay;
+		if(firstDay == Long.MIN_VALUE || d < 0 || d >= (long) words.length * 64)
+			return false;
+		return (words[(int) (d >> 6)] & (1L << d)) != 0;
+	}
+
+	/*
+	 * Returns true if a login was recorded on any day before the day
+	 */
+	public boolean hasLoginBefore(long day) {
+		if(firstDay == Long.MIN_VALUE || day <= firstDay)
+			return false;
+
+		long d = day - firstDay;
+		int full = (int) Math.min(d >> 6, words.length);
+		for(int i = 0; i < full; i++) {
+			if(words[i] != 0)
+				return true;
+		}
+		return full < words.length && (words[full] & ((1L << (d & 63)) - 1)) != 0;
+	}
+
+	/*
+	 * Logins in a row ending at the day, 0 if there was no login on the day
+	 */
+	public int getStreak(long day) {
+		if(!isLoggedIn(day))
+			return 0;
+
+		int d = (int) (day - firstDay);
+		int w = d >> 6;
+		int bit = d & 63;
+		int streak = 0;
+
+		//Days up to and including the bit, in the word of the day
+		long gaps = ~words[w] & (-1L >>> (63 - bit));
+		while(gaps == 0) {
+			streak += bit + 1;
+			if(--w < 0)
+				return streak;
+			bit = 63;
+			gaps = ~words[w];
+		}
+		return streak + bit - (63 - Long.numberOfLeadingZeros(gaps));
+	}
+
+	/*
+	 * Longest run of logins, runs may continue from one word into the next
+	 */
+	public int getLongestStreak() {
+		int longest = 0;
+		int run = 0;	//run ending at the top bit of the previous word
+		for(long word : words) {
+			if(word == -1L) {
+				run += 64;
+				longest = Math.max(longest, run);
+				continue;
+			}
+
+			//Run continuing from the previous word
+			longest = Math.max(longest, run + Long.numberOfTrailingZeros(~word));
+
+			//Runs inside the word: every step shortens each run by one
+			long x = word;
+			int inner = 0;
+			while(x != 0) {
+				x &= x >>> 1;
+				inner++;
+			}
+			longest = Math.max(longest, inner);
+
+			run = Long.numberOfLeadingZeros(~word);
+		}
+		return longest;
+	}
+
+	public int getLoginDays() {
+		int count = 0;
+		for(long word : words)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	private void set(long day) {
+		if(firstDay == Long.MIN_VALUE)
+			firstDay = day & ~63L;
+		if(day < firstDay)
+			shiftFirstDay(day & ~63L);
+
+		int d = (int) (day - firstDay);
+		if((d >> 6) >= words.length)
+			words = Arrays.copyOf(words, Math.max((d >> 6) + 1, words.length * 2));
+		words[d >> 6] |= 1L << d;
+	}
+
+	/*
+	 * A login before the first day (the clock was changed), the first day stays a multiple of 64
+	 */
+	private void shiftFirstDay(long day) {
+		int shift = (int) ((firstDay - day) >> 6);
+		long[] shifted = new long[words.length + shift];
+		System.arraycopy(words, 0, shifted, shift, words.length);
+		words = shifted;
+		firstDay = day;
+	}
+
+	/*
+	 * Trailing empty words (capacity) are not written
+	 */
+	private byte[] encode() {
+		int used = words.length;
+		while(used > 0 && words[used - 1] == 0)
+			used--;
+
+		ByteBuffer buffer = ByteBuffer.allocate(8 + used * 8);
+		buffer.putLong(firstDay);
+		for(int i = 0; i < used; i++)
+			buffer.putLong(words[i]);
+		return buffer.array();
+	}
+
+	private void load() throws IOException {
+		if(!loginFile.exists())
+			return;
+
+		PersistenceService.awaitFlush(loginFile);
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(loginFile.toPath()));
+		if(buffer.remaining() < 8)
+			return;
+
+		firstDay = buffer.getLong();
+		words = new long[buffer.remaining() / 8];
+		for(int i = 0; i < words.length; i++)
+			words[i] = buffer.getLong();
+	}
+}
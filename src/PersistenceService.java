@@ -0,0 +1,265 @@
+/**
+ * @description Saves profiles on a background thread
+ *
+ * @purpose Saving used to happen on the Swing Event Dispatch Thread, inside button and Timer listeners,
+ * so a slow disk (or a network home folder) froze the whole window. The EDT now only takes an immutable
+ * ProfileSnapshot of the profile and hands it to this service. A single persistence thread encodes
+ * (and encrypts) the snapshot and writes it, the EDT never writes a save itself.
+ *
+ * Saves of the same profile that are waiting in the queue are merged: journal records are appended
+ * together with one disk sync, and only the newest snapshot is kept. Every caller gets a future
+ * that completes once its save is on disk (journal records and store slots are synced right away,
+ * snapshots are handed to ProfileWriter, see flush).
+ *
+ * Reading a profile file waits for its saves (awaitFlush), so profiles are loaded off the EDT
+ * (see ProfileLoader). A save that can't be queued any more (after shutdown) fails its future.
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+public class PersistenceService {
+
+	/*
+	 * One thread. A file has at most one task in the queue (later saves are merged into its pending
+	 * entry), so the queue never holds more tasks than there are profile and history files.
+	 * Tasks submitted after shutdown are rejected, the shutdown hook only writes what is already queued.
+	 */
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "TamoStudy-persistence");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	//Saves waiting to be written, by absolute path of the profile file
+	private static final Map<String, PendingSave> pending = new HashMap<String, PendingSave>();
+
+	//Latest future of every profile file, used to wait for saves before reading a profile
+	private static final Map<String, CompletableFuture<Void>> lastSave = new HashMap<String, CompletableFuture<Void>>();
+
+	//History records waiting to be appended, by absolute path of the history file
+	private static final Map<String, List<byte[]>> pendingHistory = new HashMap<String, List<byte[]>>();
+
+	//Journal of every profile file that was saved during this run
+	private static final Map<String, ProfileJournal> journals = new HashMap<String, ProfileJournal>();
+
+	static {
+		//Pending saves are written before TamoStudy exits
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				executor.shutdown();
+				try {
+					executor.awaitTermination(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				ProfileWriter.flushAll();
+			}
+		}));
+	}
+
+	private static class PendingSave {
+		File file;
+		List<byte[]> records = new ArrayList<byte[]>();
+		ProfileSnapshot snapshot;
+		boolean fullSnapshot;
+		CompletableFuture<Void> future = new CompletableFuture<Void>();
+	}
+
+	/*
+	 * Saves the whole profile into the profile file
+	 */
+	public static CompletableFuture<Void> saveSnapshot(File file, ProfileSnapshot snapshot) {
+		return submit(file, null, snapshot, true);
+	}
+
+	/*
+	 * Saves an event (see ProfileJournal): a journal record is appended, the whole profile is only written
+	 * when the journal needs compacting (or, for a profile store, written to the profile's slot)
+	 */
+	public static CompletableFuture<Void> saveEvent(File file, int type, ProfileSnapshot snapshot) {
+		return submit(file, ProfileJournal.record(type, snapshot), snapshot, false);
+	}
+
+	/*
+	 * Appends a session record to a study history file (see StudyHistory)
+	 */
+	public static CompletableFuture<Void> saveHistory(final File historyFile, byte[] record) {
+		final String key = historyFile.getAbsolutePath();
+		final CompletableFuture<Void> future;
+
+		synchronized(pending) {
+			List<byte[]> records = pendingHistory.get(key);
+			if(records != null) {
+				records.add(record);
+				return lastSave.get(key);
+			}
+
+			records = new ArrayList<byte[]>();
+			records.add(record);
+			pendingHistory.put(key, records);
+			future = new CompletableFuture<Void>();
+			lastSave.put(key, future);
+		}
+
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				List<byte[]> records;
+				synchronized(pending) {
+					records = pendingHistory.remove(key);
+				}
+				try {
+					StudyHistory.write(historyFile, records);
+					future.complete(null);
+				} catch (Exception e) {
+					System.out.println("Saving " + historyFile + " failed due to exception." + e);
+					future.completeExceptionally(e);
+				}
+			}
+		}, future, pendingHistory, key);
+		return future;
+	}
+
+	/*
+	 * Returns a future that completes once every save of the file is on disk
+	 * Saves queued in ProfileWriter are written by the persistence thread, never by the caller.
+	 */
+	public static CompletableFuture<Void> flush(final File file) {
+		CompletableFuture<Void> save;
+		synchronized(pending) {
+			save = lastSave.get(file.getAbsolutePath());
+		}
+		if(save == null)
+			save = CompletableFuture.completedFuture(null);
+
+		final CompletableFuture<Void> flushed = new CompletableFuture<Void>();
+		save.whenComplete(new BiConsumer<Void, Throwable>() {
+			@Override
+			public void accept(Void result, Throwable error) {
+				execute(new Runnable() {
+					@Override
+					public void run() {
+						ProfileWriter.flush(file);
+						flushed.complete(null);
+					}
+				}, flushed, null, null);
+			}
+		});
+		return flushed;
+	}
+
+	/*
+	 * Waits until every save of the file is on disk, used before a profile file is read
+	 * Blocks, so it is only called by loaders that run off the EDT (see ProfileLoader).
+	 */
+	public static void awaitFlush(File file) {
+		try {
+			flush(file).get(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			System.out.println("Waiting for profile save failed due to exception." + e);
+		}
+	}
+
+	private static CompletableFuture<Void> submit(File file, byte[] record, ProfileSnapshot snapshot, boolean fullSnapshot) {
+		final String key = file.getAbsolutePath();
+		PendingSave save;
+		boolean queued;
+
+		synchronized(pending) {
+			save = pending.get(key);
+			queued = save != null;
+			if(!queued) {
+				save = new PendingSave();
+				save.file = file;
+				pending.put(key, save);
+				lastSave.put(key, save.future);
+			}
+
+			if(record != null)
+				save.records.add(record);
+			save.snapshot = snapshot;
+			save.fullSnapshot |= fullSnapshot;
+		}
+
+		if(!queued) {
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					write(key);
+				}
+			}, save.future, pending, key);
+		}
+		return save.future;
+	}
+
+	/*
+	 * Queues the task on the persistence thread
+	 * If the task is rejected (TamoStudy is shutting down), its pending entry is removed and the future fails,
+	 * so nobody waits for a save that will never be written.
+	 */
+	private static void execute(Runnable task, CompletableFuture<Void> future, Map<String, ?> entries, String key) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			if(entries != null) {
+				synchronized(pending) {
+					entries.remove(key);
+				}
+			}
+			future.completeExceptionally(e);
+		}
+	}
+
+	/*
+	 * Runs on the persistence thread
+	 */
+	private static void write(String key) {
+		PendingSave save;
+		synchronized(pending) {
+			save = pending.remove(key);
+		}
+		if(save == null)
+			return;
+
+		try {
+			if(ProfileStore.isStore(save.file)) {
+				ProfileStore.open(save.file).save(BinaryProfile.encode(save.snapshot));
+			} else {
+				ProfileJournal journal;
+				synchronized(journals) {
+					journal = journals.get(key);
+					if(journal == null) {
+						journal = new ProfileJournal(save.file);
+						journals.put(key, journal);
+					}
+				}
+
+				journal.append(save.records);
+				if(save.fullSnapshot || journal.needsCompaction())
+					journal.compact(encode(save.file, save.snapshot));
+			}
+			save.future.complete(null);
+		} catch (Exception e) {
+			System.out.println("Saving " + save.file + " failed due to exception." + e);
+			save.future.completeExceptionally(e);
+		}
+	}
+
+	/*
+	 * Contents of the profile file, in the format the file already has
+	 * New profile files are encrypted text
+	 */
+	private static byte[] encode(File file, ProfileSnapshot snapshot) {
+		if(BinaryProfile.isBinary(file))
+			return BinaryProfile.encode(snapshot);
+		return new Encryption().encryptToBytes(snapshot.toFileString());
+	}
+}
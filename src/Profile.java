@@ -4,6 +4,9 @@
  */
 
 import java.awt.Color;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import profile.*;
@@ -16,6 +19,29 @@ public class Profile {
 	 * Contains a Language class Object
 	 */
 	
+	/*
+	 * Names of the properties that fire change events
+	 * Changes of the Tamo, the settings and the achievements are passed on to the profile's listeners
+	 * with their own names (Tamo.HAPPINESS, ProfileSettings.LANGUAGE, Achievements.ACHIEVEMENT, ...).
+	 */
+	public static final String USERNAME = "username";
+	public static final String MONEY = "money";
+	public static final String TOTAL_TIME = "totalTime";
+	public static final String BACKGROUND = "currentBackground";
+	public static final String GUI_COLOR = "guiColor";
+	public static final String TAMO = "tamo";
+	public static final String SETTINGS = "settings";
+	public static final String ACHIEVEMENTS = "achievements";
+	public static final String LOGIN_STREAK = "loginStreak";
+	
+	private final PropertyChangeSupport changes = new PropertyChangeSupport(this);
+	private final PropertyChangeListener forwarder = new PropertyChangeListener() {
+		@Override
+		public void propertyChange(PropertyChangeEvent evt) {
+			changes.firePropertyChange(evt);
+		}
+	};
+	
 	private String username;
 	private String password;
 	
@@ -23,6 +49,8 @@ public class Profile {
 	private Date last_login_date;
 	private Date new_login_date;
 	private SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd");
+	
+	public static final String[] GUI_COLORS = {"default", "blue", "green", "orange", "purple", "yellow", "grey"};
 	private String dateString;
 	private String lastLoginString;
 	private String newLoginString;
@@ -32,6 +60,10 @@ public class Profile {
 	private int currentBackground;
 	private String guiColor;
 	private int warnings;
+	//Days logged into in a row, kept in the profile's LoginStreak file and not in the profile itself
+	private int loginStreak;
+	//Number of the newest save of the profile, tells journal records and snapshots apart (see ProfileJournal)
+	private long generation;
 	
 	private Tamo tamo;
 	private ProfileSettings settings;
@@ -59,6 +91,7 @@ public class Profile {
 		this.tamo = new Tamo();
 		this.settings = new ProfileSettings(0);
 		this.ahm = new Achievements();
+		watchParts();
 	}
 	
 	/*
@@ -82,6 +115,7 @@ public class Profile {
 		this.tamo = new Tamo(tamoName);
 		this.settings = new ProfileSettings(lang);
 		this.ahm = new Achievements();
+		watchParts();
 	}
 	
 	
@@ -104,6 +138,24 @@ public class Profile {
 		this.settings = settings;
 		this.tamo = tamo;
 		this.ahm = ahm;
+		watchParts();
+	}
+	
+	/*
+	 * Listeners of the profile get the changes of its Tamo, settings and achievements too
+	 */
+	private void watchParts() {
+		tamo.addPropertyChangeListener(forwarder);
+		settings.addPropertyChangeListener(forwarder);
+		ahm.addPropertyChangeListener(forwarder);
+	}
+	
+	public void addPropertyChangeListener(PropertyChangeListener listener) {
+		changes.addPropertyChangeListener(listener);
+	}
+	
+	public void removePropertyChangeListener(PropertyChangeListener listener) {
+		changes.removePropertyChangeListener(listener);
 	}
 
 	/*
@@ -114,7 +166,9 @@ public class Profile {
 	}
 
 	public void setUsername(String username) {
+		String old = this.username;
 		this.username = username;
+		changes.firePropertyChange(USERNAME, old, username);
 	}
 
 	public String getPassword() {
@@ -134,7 +188,11 @@ public class Profile {
 	}
 
 	public void setTamo(Tamo tamo) {
+		Tamo old = this.tamo;
+		old.removePropertyChangeListener(forwarder);
 		this.tamo = tamo;
+		tamo.addPropertyChangeListener(forwarder);
+		changes.firePropertyChange(TAMO, old, tamo);
 	}
 
 	public ProfileSettings getSettings() {
@@ -142,7 +200,11 @@ public class Profile {
 	}
 
 	public void setSettings(ProfileSettings settings) {
+		ProfileSettings old = this.settings;
+		old.removePropertyChangeListener(forwarder);
 		this.settings = settings;
+		settings.addPropertyChangeListener(forwarder);
+		changes.firePropertyChange(SETTINGS, old, settings);
 	}
 
 	public Achievements getAhm() {
@@ -150,7 +212,11 @@ public class Profile {
 	}
 
 	public void setAhm(Achievements ahm) {
+		Achievements old = this.ahm;
+		old.removePropertyChangeListener(forwarder);
 		this.ahm = ahm;
+		ahm.addPropertyChangeListener(forwarder);
+		changes.firePropertyChange(ACHIEVEMENTS, old, ahm);
 	}
 
 	public String getJoinDate() {
@@ -162,7 +228,9 @@ public class Profile {
 	}
 
 	public void setMoney(int money) {
+		int old = this.money;
 		this.money = money;
+		changes.firePropertyChange(MONEY, old, money);
 	}
 	
 	public int getTotalTime(int minutes, int seconds) {	
@@ -179,7 +247,9 @@ public class Profile {
 	}
 	
 	public void setTotalTime(int totalTime) {
+		int old = this.totalTime;
 		this.totalTime = totalTime;
+		changes.firePropertyChange(TOTAL_TIME, old, totalTime);
 	}
 
 	public String getLastLoginString() {
@@ -203,7 +273,9 @@ public class Profile {
 	}
 
 	public void setCurrentBackground(int currentBackground) {
+		int old = this.currentBackground;
 		this.currentBackground = currentBackground;
+		changes.firePropertyChange(BACKGROUND, old, currentBackground);
 	}
 
 	public String getNewLoginString() {
@@ -214,6 +286,24 @@ public class Profile {
 		this.newLoginString = newLoginString;
 	}
 	
+	public long getGeneration() {
+		return generation;
+	}
+
+	public void setGeneration(long generation) {
+		this.generation = generation;
+	}
+
+	public int getLoginStreak() {
+		return loginStreak;
+	}
+
+	public void setLoginStreak(int loginStreak) {
+		int old = this.loginStreak;
+		this.loginStreak = loginStreak;
+		changes.firePropertyChange(LOGIN_STREAK, old, loginStreak);
+	}
+	
 	public Date getNew_login_date() {
 		return new_login_date;
 	}
@@ -223,7 +313,9 @@ public class Profile {
 	}
 
 	public void setGuiColor(String guiColor) {
+		String old = this.guiColor;
 		this.guiColor = guiColor;
+		changes.firePropertyChange(GUI_COLOR, old, guiColor);
 	}
 
 	public int getWarnings() {
@@ -235,6 +327,24 @@ public class Profile {
 	}
 	
 	
+	/*
+	 * Index of the gui color, used by the compact profile formats
+	 * Order: default, blue, green, orange, purple, yellow, grey
+	 */
+	public int getGuiColorIndex() {
+		for(int i = 0; i < GUI_COLORS.length; i++) {
+			if(GUI_COLORS[i].equals(guiColor))
+				return i;
+		}
+		return 0;
+	}
+	
+	public void setGuiColorIndex(int index) {
+		if(index < 0 || index >= GUI_COLORS.length)
+			index = 0;
+		setGuiColor(GUI_COLORS[index]);
+	}
+	
 	public Color getColor() {
 		if(this.guiColor.equals("default"))
 			return new Color(255,161,161);
@@ -261,4 +371,29 @@ public class Profile {
 		
 		return profileInfo;
 	}
+	
+	/*
+	 * Builds a profile from the line that is stored in the profile file (after decryption)
+	 */
+	public static Profile fromFileString(String line) {
+		String[] profileDetails = line.split(",");
+		
+		ProfileSettings loadSettings = new ProfileSettings(Integer.parseInt(profileDetails[8]), Integer.parseInt(profileDetails[9]), Integer.parseInt(profileDetails[10]), Integer.parseInt(profileDetails[11]));
+		Achievements loadAhm = new Achievements(profileDetails[16]);
+		Tamo loadTamo = new Tamo(profileDetails[12], Integer.parseInt(profileDetails[13]), Integer.parseInt(profileDetails[14]), Integer.parseInt(profileDetails[15]));
+		
+		Profile load = new Profile(profileDetails[0], profileDetails[1], profileDetails[2], Integer.parseInt(profileDetails[3]), Integer.parseInt(profileDetails[4]), Integer.parseInt(profileDetails[5]), profileDetails[6], Integer.parseInt(profileDetails[7]), loadSettings, loadTamo, loadAhm);
+		
+		//Field 17, the generation, is missing in profiles saved before the journal had generations
+		if(profileDetails.length > 17)
+			load.setGeneration(Long.parseLong(profileDetails[17]));
+		return load;
+	}
+	
+	/*
+	 * Returns the full line that is stored in the profile file (before encryption)
+	 */
+	public String toFileString() {
+		return toString() + "," + settings.toString() + "," + tamo.toString() + "," + ahm.getAhmString() + "," + generation;
+	}
 }
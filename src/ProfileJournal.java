@@ -0,0 +1,203 @@
+/**
+ * @description Append-only journal of profile events
+ *
+ * @purpose Instead of rewriting the whole profile file after every session or achievement,
+ * a small fixed-size record is appended to "<profile>.journal". Every record holds the
+ * changeable values of the profile at the time of the event, so recovering only needs the
+ * last complete record. Once the journal grows past COMPACT_THRESHOLD records it is folded
+ * back into the profile file (the snapshot) by the ProfileWriter thread and truncated.
+ *
+ * Every snapshot and every record carries the save generation of the profile, which grows with each
+ * save. A record is only replayed if it is newer than the snapshot in the profile file, so records that
+ * were already compacted (e.g. a crash before the journal was truncated) are never applied twice, and
+ * newer records are never lost, whatever the file modification times say.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+public class ProfileJournal {
+
+	/*
+	 * Event types
+	 */
+	public static final int SESSION = 1;
+	public static final int PURCHASE = 2;
+	public static final int ACHIEVEMENT = 3;
+
+	/*
+	 * Journal layout (big endian): header magic "TJRN"(int), version(int), then the records
+	 * Record layout (48 bytes):
+	 * type(int), time(long), generation(long), totalTime, money, currentBackground, guiColor, happiness, hunger, ahmBits (ints)
+	 */
+	private static final int MAGIC = 0x544A524E;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 8;
+	private static final int RECORD_SIZE = 48;
+	private static final int COMPACT_THRESHOLD = 64;
+
+	private File journalFile;
+	private File profileFile;
+	private boolean hasHeader;
+	private int records;
+	private boolean compacting;
+
+	public ProfileJournal(File profileFile) {
+		this.profileFile = profileFile;
+		this.journalFile = new File(profileFile.getPath() + ".journal");
+		this.hasHeader = readHeader();
+		this.records = hasHeader ? (int) ((journalFile.length() - HEADER_SIZE) / RECORD_SIZE) : 0;
+	}
+
+	/*
+	 * Builds the record describing the state of the profile in the snapshot
+	 */
+	public static byte[] record(int type, ProfileSnapshot p) {
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.putInt(type);
+		record.putLong(System.currentTimeMillis());
+		record.putLong(p.getGeneration());
+		record.putInt(p.getTotalTime());
+		record.putInt(p.getMoney());
+		record.putInt(p.getCurrentBackground());
+		record.putInt(p.getGuiColorIndex());
+		record.putInt(p.getHappiness());
+		record.putInt(p.getHunger());
+		record.putInt(p.getAhmBits());
+		return record.array();
+	}
+
+	/*
+	 * Appends records to the journal with a single write and disk sync
+	 */
+	public synchronized void append(List<byte[]> newRecords) throws IOException {
+		if(newRecords.isEmpty())
+			return;
+
+		//A journal without a header (new, or written before the journal had generations) starts over
+		if(!hasHeader) {
+			ProfileWriter.writeAtomically(journalFile, header().array());
+			hasHeader = true;
+			records = 0;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(newRecords.size() * RECORD_SIZE);
+		for(byte[] record : newRecords) {
+			buffer.put(record);
+		}
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+		records += newRecords.size();
+	}
+
+	/*
+	 * Applies the last complete record of the journal to a freshly loaded profile.
+	 * A partially written record at the end (crash mid-append) is ignored.
+	 * A record that is not newer than the profile's snapshot was already compacted and is ignored as well.
+	 */
+	public synchronized void replay(Profile p) throws IOException {
+		if(!readHeader())
+			return;
+		long complete = (journalFile.length() - HEADER_SIZE) / RECORD_SIZE;
+		if(complete == 0)
+			return;
+
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ)) {
+			long position = HEADER_SIZE + (complete - 1) * RECORD_SIZE;
+			while(record.hasRemaining()) {
+				if(channel.read(record, position + record.position()) < 0)
+					break;
+			}
+		}
+		record.flip();
+
+		record.getInt();	//type
+		record.getLong();	//time
+		long generation = record.getLong();
+		if(generation <= p.getGeneration())
+			return;
+
+		p.setGeneration(generation);
+		p.setTotalTime(record.getInt());
+		p.setMoney(record.getInt());
+		p.setCurrentBackground(record.getInt());
+		p.setGuiColorIndex(record.getInt());
+		p.getTamo().setHappiness(record.getInt());
+		p.getTamo().setHunger(record.getInt());
+
+		p.getAhm().setBits(p.getAhm().getBits() | record.getInt());
+	}
+
+	public synchronized boolean needsCompaction() {
+		return records >= COMPACT_THRESHOLD;
+	}
+
+	/*
+	 * Queues the snapshot to be written (see ProfileWriter), then empties the journal once it is on disk.
+	 * Events appended after the snapshot was taken are newer than it, so they are kept.
+	 */
+	public synchronized void compact(byte[] snapshot) {
+		final int capturedRecords = records;
+		ProfileWriter.writeLater(profileFile, snapshot, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					dropRecords(capturedRecords);
+				} catch (IOException e) {
+					System.out.println("Compacting profile journal failed due to exception." + e);
+				}
+			}
+		});
+	}
+
+	/*
+	 * Removes the first count records of the journal
+	 */
+	private synchronized void dropRecords(int count) throws IOException {
+		ByteBuffer journal = header();
+		byte[] tail = new byte[(records - count) * RECORD_SIZE];
+		if(tail.length > 0) {
+			try (RandomAccessFile file = new RandomAccessFile(journalFile, "r")) {
+				file.seek(HEADER_SIZE + (long) count * RECORD_SIZE);
+				file.readFully(tail);
+			}
+		}
+
+		ByteBuffer compacted = ByteBuffer.allocate(HEADER_SIZE + tail.length);
+		compacted.put(journal);
+		compacted.put(tail);
+		ProfileWriter.writeAtomically(journalFile, compacted.array());
+		records = records - count;
+	}
+
+	private static ByteBuffer header() {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.flip();
+		return header;
+	}
+
+	/*
+	 * Returns true if the journal starts with the header of this version
+	 */
+	private boolean readHeader() {
+		if(journalFile.length() < HEADER_SIZE)
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(journalFile))) {
+			return in.readInt() == MAGIC && in.readInt() == VERSION;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+}
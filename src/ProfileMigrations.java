@@ -0,0 +1,281 @@
+/**
+ * @description Ordered migration steps from every old profile format to the current one
+ *
+ * @purpose Each profile format has a schema version. A migration step converts the fields of one
+ * version into the fields of the next one, and the steps are kept in a registry ordered by version,
+ * so a profile from any old version is brought up to date by running every step after it in turn.
+ * Adding a new format only means adding one step.
+ *
+ * The version of a profile file is detected from the file itself (header and number of fields),
+ * the user does not need to know which version made it. A folder of profiles is migrated as a
+ * parallel stream, one profile file per task.
+ */
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class ProfileMigrations {
+
+	/*
+	 * Schema versions of the text profile formats
+	 */
+	public static final int ALPHA_0_4 = 0;	//plain text, 11 fields
+	public static final int ALPHA_0_5 = 1;	//plain text, 13 fields (alpha 0.5.0 - 0.6.2)
+	public static final int BETA_1 = 2;		//shift cipher, 13 fields
+	public static final int BETA_2 = 3;		//17 fields, 18 with the save generation, see Profile.toFileString
+	public static final int CURRENT = BETA_2;
+
+	public static final String[] VERSION_NAMES = {"alpha 0.4.1", "alpha 0.5.0 - 0.6.2", "beta 1.x", "beta 2.0"};
+
+	//Achievement 5: "Updated profile from a version before beta"
+	private static final int UPDATED_ACHIEVEMENT = 5;
+
+	/*
+	 * A step converts the fields of version "from" into the fields of version "to"
+	 */
+	public static abstract class Step {
+		public final int from;
+		public final int to;
+
+		public Step(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		public abstract String[] migrate(String[] fields);
+	}
+
+	//Registry of steps, by the version they convert from
+	private static final Map<Integer, Step> steps = new TreeMap<Integer, Step>();
+
+	static {
+		/*
+		 * alpha 0.4.1 -> beta 1.x
+		 * The password (field 1) is dropped, gui color, warnings and Tamo id are added
+		 */
+		register(new Step(ALPHA_0_4, BETA_1) {
+			@Override
+			public String[] migrate(String[] old) {
+				String[] fields = new String[13];
+				fields[0] = old[0];
+				System.arraycopy(old, 2, fields, 1, 9);
+				fields[10] = "default";
+				fields[11] = "0";
+				fields[12] = "0";
+				return fields;
+			}
+		});
+		
+		/*
+		 * alpha 0.5.0 - 0.6.2 -> beta 1.x
+		 * The password (field 1) is dropped, the Tamo id is added
+		 */
+		register(new Step(ALPHA_0_5, BETA_1) {
+			@Override
+			public String[] migrate(String[] old) {
+				String[] fields = new String[13];
+				fields[0] = old[0];
+				System.arraycopy(old, 2, fields, 1, 11);
+				fields[12] = "0";
+				return fields;
+			}
+		});
+		
+		/*
+		 * beta 1.x -> beta 2.0
+		 * 1.x: username, join date, last login, total time, money, tamo name, level, happiness, hunger,
+		 * background, gui color, warnings, tamo id
+		 * 2.0 adds the settings (default values) and the achievements, the level is calculated from the total time.
+		 */
+		register(new Step(BETA_1, BETA_2) {
+			@Override
+			public String[] migrate(String[] old) {
+				return new String[] {
+					old[0], old[1], old[2], old[3], old[4], old[9], old[10], old[11],
+					"0", "0", "0", "0",
+					old[5], old[12], old[7], old[8],
+					"00000000"
+				};
+			}
+		});
+	}
+
+	public static synchronized void register(Step step) {
+		steps.put(step.from, step);
+	}
+
+	/*
+	 * Result of migrating one profile file
+	 */
+	public static class Result {
+		public final File file;
+		public final int fromVersion;
+		public final Exception error;
+
+		Result(File file, int fromVersion, Exception error) {
+			this.file = file;
+			this.fromVersion = fromVersion;
+			this.error = error;
+		}
+
+		public boolean migrated() {
+			return error == null && fromVersion < CURRENT;
+		}
+
+		@Override
+		public String toString() {
+			if(error != null)
+				return file.getName() + ": failed (" + error.getMessage() + ")";
+			if(fromVersion == CURRENT)
+				return file.getName() + ": already up to date";
+			return file.getName() + ": " + VERSION_NAMES[fromVersion] + " -> " + VERSION_NAMES[CURRENT];
+		}
+	}
+
+	/*
+	 * Detects the schema version of the decoded fields
+	 * plainText: the file was not encrypted (alpha versions)
+	 */
+	public static int detectVersion(String[] fields, boolean plainText) throws IOException {
+		if(plainText && fields.length == 11)
+			return ALPHA_0_4;
+		if(plainText && fields.length == 13)
+			return ALPHA_0_5;
+		if(!plainText && fields.length == 13)
+			return BETA_1;
+		if(!plainText && (fields.length == 17 || fields.length == 18))
+			return BETA_2;
+		throw new IOException("Unknown profile format (" + fields.length + " fields)");
+	}
+
+	/*
+	 * Runs every step from the version up to CURRENT
+	 */
+	public static String[] migrate(String[] fields, int version) {
+		for(int v = version; v < CURRENT; ) {
+			Step step;
+			synchronized(ProfileMigrations.class) {
+				step = steps.get(v);
+			}
+			if(step == null)
+				throw new IllegalStateException("No migration step from " + VERSION_NAMES[v]);
+			fields = step.migrate(fields);
+			v = step.to;
+		}
+
+		if(version < BETA_1) {
+			char[] ahm = fields[16].toCharArray();
+			ahm[UPDATED_ACHIEVEMENT] = '1';
+			fields[16] = new String(ahm);
+		}
+		return fields;
+	}
+
+	/*
+	 * Migrates a profile file in place, returns the version it was in
+	 * Binary profiles (BinaryProfile) have their own header version and are left alone.
+	 */
+	public static int migrate(File file) throws IOException {
+		if(BinaryProfile.isBinary(file))
+			return CURRENT;
+
+		Decoded profile = decode(file);
+		int version = profile.version();
+		if(version == CURRENT)
+			return version;
+
+		new Encryption().writeFile(file, String.join(",", migrate(profile.fields, version)));
+		return version;
+	}
+
+	/*
+	 * Detects the schema version of a profile file without changing it
+	 */
+	public static int detectVersion(File file) throws IOException {
+		if(BinaryProfile.isBinary(file))
+			return CURRENT;
+		return decode(file).version();
+	}
+
+	/*
+	 * Fields of a text profile file, decrypted if needed
+	 */
+	private static class Decoded {
+		String[] fields;
+		boolean plainText;
+
+		int version() throws IOException {
+			return detectVersion(fields, plainText);
+		}
+	}
+
+	private static Decoded decode(File file) throws IOException {
+		PersistenceService.awaitFlush(file);
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		String raw = new String(bytes, StandardCharsets.UTF_8).trim();
+
+		Decoded profile = new Decoded();
+		profile.fields = new Encryption().decode(bytes).split(",");
+		if(raw.startsWith(Encryption.HEADER) || isReadable(profile.fields, false))
+			return profile;
+
+		/*
+		 * Alpha versions were not encrypted. A comma doesn't tell them apart from the shift cipher
+		 * ('&' is shifted to ','), so a file is only read as plain text if its decrypted fields are not
+		 * a known format and its plain fields are.
+		 */
+		String[] plain = raw.split(",");
+		if(isReadable(plain, true)) {
+			profile.fields = plain;
+			profile.plainText = true;
+		}
+		return profile;
+	}
+
+	/*
+	 * Returns true if the fields are a known format and the total time (a number in every format) is one
+	 */
+	private static boolean isReadable(String[] fields, boolean plainText) {
+		try {
+			detectVersion(fields, plainText);
+			Integer.parseInt(fields[plainText ? 4 : 3].trim());
+			return true;
+		} catch (IOException | NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Migrates every profile file of the folder in parallel
+	 */
+	public static List<Result> migrateAll(File folder) {
+		File[] files = folder.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File f) {
+				return f.isFile() && f.getName().endsWith(".txt");
+			}
+		});
+		if(files == null)
+			return new ArrayList<Result>();
+		return migrateAll(Arrays.asList(files));
+	}
+
+	public static List<Result> migrateAll(List<File> files) {
+		return files.parallelStream()
+				.map(ProfileMigrations::migrateQuietly)
+				.collect(Collectors.toList());
+	}
+
+	private static Result migrateQuietly(File file) {
+		try {
+			return new Result(file, migrate(file), null);
+		} catch (Exception e) {
+			System.out.println("Migrating " + file + " failed due to exception." + e);
+			return new Result(file, -1, e);
+		}
+	}
+}
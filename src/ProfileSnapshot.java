@@ -0,0 +1,217 @@
+/**
+ * @description Immutable snapshot of a profile
+ *
+ * @purpose Profile, Tamo, ProfileSettings and Achievements are mutable and are changed by the GUI windows
+ * without any locking, so another thread reading them can see half of an update (new money, old background).
+ * A ProfileSnapshot copies every value once, on the thread that changed the profile, and can never change
+ * afterwards. The GUI publishes the newest snapshot in an AtomicReference; the persistence thread,
+ * statistics views and anything else that only reads the profile use the snapshot without locks.
+ *
+ * A changed copy is made with the with... methods, the snapshot itself is never modified.
+ */
+
+import profile.*;
+
+public final class ProfileSnapshot {
+
+	private final String username;
+	private final String joinDate;
+	private final String lastLogin;
+	private final int totalTime;
+	private final int money;
+	private final int currentBackground;
+	private final int guiColorIndex;
+	private final int warnings;
+
+	private final int focusMode;
+	private final int language;
+	private final int sessionSounds;
+	private final int backgroundSounds;
+
+	private final String tamoName;
+	private final int tamoId;
+	private final int happiness;
+	private final int hunger;
+
+	private final int ahmBits;
+
+	//Save generation, see ProfileJournal
+	private final long generation;
+
+	private ProfileSnapshot(String username, String joinDate, String lastLogin, int totalTime, int money, int currentBackground, int guiColorIndex, int warnings,
+			int focusMode, int language, int sessionSounds, int backgroundSounds, String tamoName, int tamoId, int happiness, int hunger, int ahmBits, long generation) {
+		this.username = username;
+		this.joinDate = joinDate;
+		this.lastLogin = lastLogin;
+		this.totalTime = totalTime;
+		this.money = money;
+		this.currentBackground = currentBackground;
+		this.guiColorIndex = guiColorIndex;
+		this.warnings = warnings;
+		this.focusMode = focusMode;
+		this.language = language;
+		this.sessionSounds = sessionSounds;
+		this.backgroundSounds = backgroundSounds;
+		this.tamoName = tamoName;
+		this.tamoId = tamoId;
+		this.happiness = happiness;
+		this.hunger = hunger;
+		this.ahmBits = ahmBits;
+		this.generation = generation;
+	}
+
+	/*
+	 * Copies the current values of the profile
+	 * Must be called on the thread that changes the profile (the Swing EDT)
+	 */
+	public static ProfileSnapshot of(Profile p) {
+		ProfileSettings settings = p.getSettings();
+		Tamo tamo = p.getTamo();
+		//Happiness and hunger of the same moment, even if another thread changes the Tamo
+		long tamoState = tamo.getState();
+		return new ProfileSnapshot(p.getUsername(), p.getJoinDate(), p.getLastLoginString(), p.getTotalTime(), p.getMoney(), p.getCurrentBackground(),
+				p.getGuiColorIndex(), p.getWarnings(), settings.getFocusMode(), settings.getLang().getIndicator(), settings.getSessionSounds(),
+				settings.getBackgroundSounds(), tamo.getName(), tamo.getId(),
+				TamoState.get(tamoState, TamoState.HAPPINESS), TamoState.get(tamoState, TamoState.HUNGER), p.getAhm().getBits(), p.getGeneration());
+	}
+
+	/*
+	 * Builds a new mutable profile with the values of the snapshot
+	 */
+	public Profile toProfile() {
+		ProfileSettings settings = new ProfileSettings(focusMode, language, sessionSounds, backgroundSounds);
+		Tamo tamo = new Tamo(tamoName, tamoId, happiness, hunger);
+		Achievements ahm = new Achievements();
+		ahm.setBits(ahmBits);
+
+		Profile p = new Profile(username, joinDate, lastLogin, totalTime, money, currentBackground, Profile.GUI_COLORS[0], warnings, settings, tamo, ahm);
+		p.setGuiColorIndex(guiColorIndex);
+		p.setGeneration(generation);
+		return p;
+	}
+
+	/*
+	 * Returns the full line that is stored in the profile file (before encryption), same as Profile.toFileString
+	 */
+	public String toFileString() {
+		return toProfile().toFileString();
+	}
+
+	/*
+	 * Changed copies
+	 */
+	public ProfileSnapshot withTotalTime(int totalTime) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withMoney(int money) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withCurrentBackground(int currentBackground) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withGuiColorIndex(int guiColorIndex) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withLastLogin(String lastLogin) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withSettings(int focusMode, int language, int sessionSounds, int backgroundSounds) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withTamo(int happiness, int hunger) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	public ProfileSnapshot withAhmBits(int ahmBits) {
+		return new ProfileSnapshot(username, joinDate, lastLogin, totalTime, money, currentBackground, guiColorIndex, warnings,
+				focusMode, language, sessionSounds, backgroundSounds, tamoName, tamoId, happiness, hunger, ahmBits, generation);
+	}
+
+	/*
+	 * Accessors
+	 */
+	public String getUsername() {
+		return username;
+	}
+
+	public String getJoinDate() {
+		return joinDate;
+	}
+
+	public String getLastLogin() {
+		return lastLogin;
+	}
+
+	public int getTotalTime() {
+		return totalTime;
+	}
+
+	public int getMoney() {
+		return money;
+	}
+
+	public int getCurrentBackground() {
+		return currentBackground;
+	}
+
+	public int getGuiColorIndex() {
+		return guiColorIndex;
+	}
+
+	public int getWarnings() {
+		return warnings;
+	}
+
+	public int getFocusMode() {
+		return focusMode;
+	}
+
+	public int getLanguage() {
+		return language;
+	}
+
+	public int getSessionSounds() {
+		return sessionSounds;
+	}
+
+	public int getBackgroundSounds() {
+		return backgroundSounds;
+	}
+
+	public String getTamoName() {
+		return tamoName;
+	}
+
+	public int getTamoId() {
+		return tamoId;
+	}
+
+	public int getHappiness() {
+		return happiness;
+	}
+
+	public int getHunger() {
+		return hunger;
+	}
+
+	public int getAhmBits() {
+		return ahmBits;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+}
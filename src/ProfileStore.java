@@ -0,0 +1,404 @@
+/**
+ * @description A single file that holds many profiles
+ *
+ * @purpose Shared machines can have hundreds of profiles. Instead of one text file per profile that is
+ * parsed on every load, a store keeps every profile as a binary profile (see BinaryProfile) in a
+ * fixed-size slot of one file. When the store is opened the usernames are indexed in memory
+ * (open addressing, username -> slot offset), so listing, searching and opening a profile
+ * never touches the other profiles.
+ *
+ * Layout: 16 byte header (magic "TSTR", version, slot size), then slots of SLOT_SIZE bytes.
+ * A slot starts with the length of the binary profile it holds (0 is an empty slot) and a save sequence.
+ *
+ * A save never overwrites the slot the profile is read from: the profile is written (and forced to disk)
+ * into a spare slot with the next sequence number, and only then does the old slot become the spare.
+ * If TamoStudy crashes halfway through a save, the torn slot fails the profile's checksum and is skipped
+ * when the store is opened, and the slot with the highest sequence still holds the last save.
+ * Stores of version 1 (slots without a sequence) are rewritten once, atomically, when they are opened.
+ */
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class ProfileStore {
+
+	public static final int MAGIC = 0x54535452;	// "TSTR"
+	public static final short VERSION = 2;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int SLOT_SIZE = 512;
+
+	//Slot header: length of the profile (int), save sequence (long)
+	private static final int SLOT_HEADER = 12;
+	private static final int SLOT_HEADER_V1 = 4;
+
+	//Stores that were opened during this run, so rebuilding a window doesn't rescan the file
+	private static final Map<String, ProfileStore> openStores = new HashMap<String, ProfileStore>();
+
+	private File file;
+	private UsernameIndex index;
+	private long slots;
+
+	//Sequence of the newest save, and the slots that hold no current profile
+	private long sequence;
+	private Deque<Long> spareSlots = new ArrayDeque<Long>();
+
+	private ProfileStore(File file) throws IOException {
+		this.file = file;
+		this.index = new UsernameIndex();
+
+		if(!file.exists() || file.length() == 0)
+			writeHeader();
+
+		scan();
+	}
+
+	/*
+	 * Opens (or creates) the store in the file
+	 */
+	public static synchronized ProfileStore open(File file) throws IOException {
+		String key = file.getCanonicalPath();
+		ProfileStore store = openStores.get(key);
+		if(store == null) {
+			store = new ProfileStore(file);
+			openStores.put(key, store);
+		}
+		return store;
+	}
+
+	/*
+	 * File kept next to a profile file for one profile (e.g. its study history or its logins)
+	 * All profiles of a store share the store file, so theirs are told apart by the username:
+	 * "<profile>.history" for a profile file, "<store>.<username>.history" for a store.
+	 */
+	public static File companionFile(File profileFile, String username, String suffix) {
+		if(!isStore(profileFile))
+			return new File(profileFile.getPath() + suffix);
+
+		try {
+			return new File(profileFile.getPath() + "." + URLEncoder.encode(username, "UTF-8") + suffix);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Returns true if the file starts with the store magic
+	 */
+	public static boolean isStore(File file) {
+		if(file.length() < HEADER_SIZE)
+			return false;
+
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/*
+	 * Usernames of all profiles in the store, sorted
+	 */
+	public synchronized List<String> usernames() {
+		List<String> names = index.keys();
+		Collections.sort(names, String.CASE_INSENSITIVE_ORDER);
+		return names;
+	}
+
+	/*
+	 * Usernames that contain the search text (case insensitive), sorted
+	 */
+	public synchronized List<String> search(String text) {
+		String lower = text.toLowerCase();
+		List<String> names = new ArrayList<String>();
+		for(String name : usernames()) {
+			if(name.toLowerCase().contains(lower))
+				names.add(name);
+		}
+		return names;
+	}
+
+	public synchronized boolean contains(String username) {
+		return index.get(username) >= 0;
+	}
+
+	/*
+	 * Loads the profile with the username, or returns null if it is not in the store
+	 */
+	public synchronized Profile load(String username) throws IOException {
+		long offset = index.get(username);
+		if(offset < 0)
+			return null;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer slot = channel.map(FileChannel.MapMode.READ_ONLY, offset, SLOT_SIZE);
+			int length = slot.getInt(0);
+			slot.position(SLOT_HEADER);
+			slot.limit(SLOT_HEADER + length);
+			return BinaryProfile.decode(slot.slice());
+		}
+	}
+
+	/*
+	 * Saves the profile into its slot, or into a new slot if the username is not in the store yet
+	 */
+	public void save(Profile p) throws IOException {
+		save(BinaryProfile.encode(p));
+	}
+
+	/*
+	 * Saves a profile that was already encoded with BinaryProfile.encode
+	 * The profile is written into a spare slot (or a new one), its old slot becomes the spare.
+	 */
+	public synchronized void save(byte[] data) throws IOException {
+		String username = BinaryProfile.readUsername(ByteBuffer.wrap(data));
+		if(data.length > SLOT_SIZE - SLOT_HEADER)
+			throw new IOException("Profile " + username + " is too large for the profile store");
+
+		Long spare = spareSlots.poll();
+		long offset = spare != null ? spare : HEADER_SIZE + slots * SLOT_SIZE;
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			writeSlot(channel, offset, data, sequence + 1);
+			channel.force(false);
+		} catch (IOException e) {
+			if(spare != null)
+				spareSlots.push(spare);
+			throw e;
+		}
+
+		sequence++;
+		if(spare == null)
+			slots++;
+
+		long oldOffset = index.get(username);
+		if(oldOffset >= 0)
+			spareSlots.add(oldOffset);
+		index.put(username, offset);
+	}
+
+	/*
+	 * Copies a profile file (text or binary) into the store
+	 */
+	public void importProfile(File profileFile) throws IOException {
+		PersistenceService.awaitFlush(profileFile);
+		
+		Profile p;
+		if(BinaryProfile.isBinary(profileFile)) {
+			p = BinaryProfile.read(profileFile);
+		} else {
+			p = Profile.fromFileString(new Encryption().readFile(profileFile));
+		}
+		new ProfileJournal(profileFile).replay(p);
+		save(p);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putShort(VERSION);
+		header.putShort((short) 0);
+		header.putInt(SLOT_SIZE);
+		header.rewind();
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while(header.hasRemaining())
+				channel.write(header);
+		}
+	}
+
+	private static void writeSlot(FileChannel channel, long offset, byte[] data, long sequence) throws IOException {
+		ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+		slot.putInt(data.length);
+		slot.putLong(sequence);
+		slot.put(data);
+		slot.rewind();
+
+		while(slot.hasRemaining())
+			channel.write(slot, offset + slot.position());
+	}
+
+	/*
+	 * Reads the header and builds the username index from the slots
+	 * Of the slots of one username the newest readable one is used, the others become spare slots.
+	 */
+	private void scan() throws IOException {
+		short version;
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_SIZE)
+				throw new IOException("Not a TamoStudy profile store");
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(channel, header);
+			if(header.getInt(0) != MAGIC)
+				throw new IOException("Not a TamoStudy profile store");
+			version = header.getShort(4);
+			if(version > VERSION)
+				throw new IOException("Profile store was saved by a newer version of TamoStudy");
+			if(header.getInt(8) != SLOT_SIZE)
+				throw new IOException("Unsupported profile store slot size " + header.getInt(8));
+
+			//A version 1 store is read into memory, a mapping would keep it from being replaced on Windows
+			if(version < 2) {
+				buffer = ByteBuffer.allocate((int) channel.size());
+				readFully(channel, buffer);
+			} else {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+			int slotHeader = version < 2 ? SLOT_HEADER_V1 : SLOT_HEADER;
+			Map<String, Long> sequences = new HashMap<String, Long>();
+			slots = (buffer.limit() - HEADER_SIZE) / SLOT_SIZE;
+			for(long i = 0; i < slots; i++) {
+				int offset = (int) (HEADER_SIZE + i * SLOT_SIZE);
+				ByteBuffer profile = readSlot(buffer, offset, slotHeader);
+				if(profile == null) {
+					if(buffer.getInt(offset) != 0)
+						System.out.println("Skipped unreadable slot " + i + " of profile store " + file);
+					spareSlots.add((long) offset);
+					continue;
+				}
+
+				long slotSequence = version < 2 ? 0 : buffer.getLong(offset + 4);
+				String username = BinaryProfile.readUsername(profile);
+				Long current = sequences.get(username);
+				if(current != null && current > slotSequence) {
+					spareSlots.add((long) offset);
+					continue;
+				}
+
+				if(current != null)
+					spareSlots.add(index.get(username));
+				index.put(username, offset);
+				sequences.put(username, slotSequence);
+				sequence = Math.max(sequence, slotSequence);
+			}
+		}
+
+		if(version < 2)
+			upgrade(buffer);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, buffer.position()) < 0)
+				throw new EOFException();
+		}
+		buffer.rewind();
+	}
+
+	/*
+	 * The binary profile in the slot, or null if the slot is empty or can't be read
+	 */
+	private static ByteBuffer readSlot(ByteBuffer buffer, int offset, int slotHeader) {
+		int length = buffer.getInt(offset);
+		if(length <= 0 || length > SLOT_SIZE - slotHeader)
+			return null;
+
+		ByteBuffer profile = buffer.duplicate();
+		profile.position(offset + slotHeader);
+		profile.limit(offset + slotHeader + length);
+		profile = profile.slice();
+		return BinaryProfile.isValid(profile) ? profile : null;
+	}
+
+	/*
+	 * Rewrites a version 1 store (slots without a sequence) in the current layout
+	 * The new store is written with ProfileWriter.writeAtomically, so a crash leaves the old one.
+	 */
+	private void upgrade(ByteBuffer buffer) throws IOException {
+		List<String> usernames = index.keys();
+		ByteBuffer store = ByteBuffer.allocate(HEADER_SIZE + usernames.size() * SLOT_SIZE);
+		store.putInt(MAGIC);
+		store.putShort(VERSION);
+		store.putShort((short) 0);
+		store.putInt(SLOT_SIZE);
+
+		UsernameIndex upgraded = new UsernameIndex();
+		for(int i = 0; i < usernames.size(); i++) {
+			int offset = HEADER_SIZE + i * SLOT_SIZE;
+			ByteBuffer profile = readSlot(buffer, (int) index.get(usernames.get(i)), SLOT_HEADER_V1);
+
+			store.position(offset);
+			store.putInt(profile.remaining());
+			store.putLong(1);
+			store.put(profile);
+			upgraded.put(usernames.get(i), offset);
+		}
+
+		ProfileWriter.writeAtomically(file, store.array());
+		index = upgraded;
+		slots = usernames.size();
+		sequence = 1;
+		spareSlots.clear();
+	}
+
+	/*
+	 * Open addressing hash table (linear probing) from username to slot offset
+	 */
+	private static class UsernameIndex {
+		private String[] keys = new String[64];
+		private long[] offsets = new long[64];
+		private int size;
+
+		long get(String username) {
+			int mask = keys.length - 1;
+			for(int i = hash(username) & mask; keys[i] != null; i = (i + 1) & mask) {
+				if(keys[i].equals(username))
+					return offsets[i];
+			}
+			return -1;
+		}
+
+		void put(String username, long offset) {
+			if((size + 1) * 2 > keys.length)
+				resize();
+
+			int mask = keys.length - 1;
+			int i = hash(username) & mask;
+			while(keys[i] != null && !keys[i].equals(username)) {
+				i = (i + 1) & mask;
+			}
+			if(keys[i] == null)
+				size++;
+			keys[i] = username;
+			offsets[i] = offset;
+		}
+
+		List<String> keys() {
+			List<String> list = new ArrayList<String>(size);
+			for(String key : keys) {
+				if(key != null)
+					list.add(key);
+			}
+			return list;
+		}
+
+		private void resize() {
+			String[] oldKeys = keys;
+			long[] oldOffsets = offsets;
+			keys = new String[oldKeys.length * 2];
+			offsets = new long[oldKeys.length * 2];
+			size = 0;
+			for(int i = 0; i < oldKeys.length; i++) {
+				if(oldKeys[i] != null)
+					put(oldKeys[i], oldOffsets[i]);
+			}
+		}
+
+		private static int hash(String key) {
+			int h = key.hashCode();
+			return h ^ (h >>> 16);
+		}
+	}
+}
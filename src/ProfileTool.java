@@ -0,0 +1,173 @@
+/**
+ * @description Command line tool to migrate, validate or re-encrypt many profiles at once
+ *
+ * @purpose The Profile Updater window converts one profile at a time, which can't be scripted by someone
+ * looking after a whole lab of computers. This tool runs without any window:
+ *
+ *   java TamoStudy --migrate <folder>     updates every profile to the current format (see ProfileMigrations)
+ *   java TamoStudy --validate <folder>    checks every profile can be loaded, nothing is written
+ *   java TamoStudy --reencrypt <folder>   updates and rewrites every text profile with a new encryption IV
+ *
+ * The folder is walked recursively with a fork-join pool: every sub folder and every profile file is
+ * its own task, so the work spreads over all cores. At the end the number of profiles, the throughput
+ * (files per second) and the error of every failed profile are printed.
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProfileTool {
+
+	public static final String MIGRATE = "--migrate";
+	public static final String VALIDATE = "--validate";
+	public static final String REENCRYPT = "--reencrypt";
+
+	private final String operation;
+	private final AtomicInteger processed = new AtomicInteger();
+	private final AtomicInteger changed = new AtomicInteger();
+	private final Queue<String> errors = new ConcurrentLinkedQueue<String>();
+
+	public ProfileTool(String operation) {
+		this.operation = operation;
+	}
+
+	/*
+	 * Returns true if the arguments ask for the command line tool instead of the GUI
+	 */
+	public static boolean isCommand(String[] args) {
+		return args.length > 0 && args[0].startsWith("--");
+	}
+
+	/*
+	 * Runs the tool, returns the exit code: 0 when every profile was fine, 1 otherwise
+	 */
+	public static int run(String[] args) {
+		if(args.length != 2 || !(args[0].equals(MIGRATE) || args[0].equals(VALIDATE) || args[0].equals(REENCRYPT))) {
+			System.out.println("Usage: java TamoStudy (" + MIGRATE + " | " + VALIDATE + " | " + REENCRYPT + ") <folder>");
+			return 2;
+		}
+
+		File folder = new File(args[1]);
+		if(!folder.isDirectory()) {
+			System.out.println(folder + " is not a folder");
+			return 2;
+		}
+
+		ProfileTool tool = new ProfileTool(args[0]);
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		long start = System.nanoTime();
+		pool.invoke(tool.new FolderTask(folder));
+		pool.shutdown();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(tool.report(seconds));
+		return tool.errors.isEmpty() ? 0 : 1;
+	}
+
+	public String report(double seconds) {
+		StringBuilder report = new StringBuilder();
+		report.append(operation.substring(2)).append(": ").append(processed.get()).append(" profile(s), ")
+			.append(changed.get()).append(" changed, ").append(errors.size()).append(" failed\n");
+		report.append(String.format("%.2f s, %.1f files/sec%n", seconds, seconds > 0 ? processed.get() / seconds : 0.0));
+		for(String error : errors) {
+			report.append("  ").append(error).append("\n");
+		}
+		return report.toString();
+	}
+
+	/*
+	 * Profile files: text profiles (.txt) and binary profiles (.tamo)
+	 * Journals, histories, temporary files and profile stores are skipped.
+	 */
+	private static boolean isProfileFile(File file) {
+		String name = file.getName();
+		return file.isFile() && (name.endsWith(".txt") || name.endsWith(".tamo"));
+	}
+
+	private void process(File file) {
+		try {
+			boolean fileChanged;
+			if(operation.equals(MIGRATE)) {
+				fileChanged = ProfileMigrations.migrate(file) < ProfileMigrations.CURRENT;
+			} else if(operation.equals(VALIDATE)) {
+				validate(file);
+				fileChanged = false;
+			} else {
+				fileChanged = reencrypt(file);
+			}
+
+			if(fileChanged)
+				changed.incrementAndGet();
+		} catch (Exception e) {
+			errors.add(file.getPath() + ": " + e);
+		}
+		processed.incrementAndGet();
+	}
+
+	/*
+	 * Loads the profile the same way welcomeGUI does, without writing anything
+	 */
+	private static void validate(File file) throws IOException {
+		Profile p;
+		if(BinaryProfile.isBinary(file)) {
+			p = BinaryProfile.read(file);
+		} else {
+			int version = ProfileMigrations.detectVersion(file);
+			if(version != ProfileMigrations.CURRENT)
+				throw new IOException("Profile is from " + ProfileMigrations.VERSION_NAMES[version] + ", run " + MIGRATE + " first");
+			p = Profile.fromFileString(new Encryption().readFile(file));
+		}
+		new ProfileJournal(file).replay(p);
+	}
+
+	/*
+	 * Brings a text profile up to date and writes it again with a new IV
+	 * Binary profiles are not encrypted and are left alone.
+	 */
+	private static boolean reencrypt(File file) throws IOException {
+		if(BinaryProfile.isBinary(file))
+			return false;
+
+		ProfileMigrations.migrate(file);
+		Encryption encryption = new Encryption();
+		encryption.writeFile(file, encryption.readFile(file));
+		return true;
+	}
+
+	/*
+	 * Forks a task for every sub folder and every profile file of the folder
+	 */
+	private class FolderTask extends RecursiveAction {
+		private final File folder;
+
+		FolderTask(File folder) {
+			this.folder = folder;
+		}
+
+		@Override
+		protected void compute() {
+			File[] files = folder.listFiles();
+			if(files == null) {
+				errors.add(folder.getPath() + ": could not be read");
+				return;
+			}
+
+			List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+			for(final File file : files) {
+				if(file.isDirectory()) {
+					tasks.add(new FolderTask(file));
+				} else if(isProfileFile(file)) {
+					tasks.add(new RecursiveAction() {
+						@Override
+						protected void compute() {
+							process(file);
+						}
+					});
+				}
+			}
+			invokeAll(tasks);
+		}
+	}
+}
@@ -5,9 +5,9 @@
  * 
  * How to use: 
  * 
- * User selects the version of TamoStudy their profile is from, then selects
- * the text file that their profile is from.
+ * User selects the text file that their profile is from (or a folder of profile files).
  * User will then hit update profile button and then the file will be rewritten and updated.
+ * The version the profile is from is detected automatically, see ProfileMigrations.
  *
  */
 
@@ -15,7 +15,11 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.swing.*;
+import guicomponents.IconCache;
 
 public class ProfileUpdater extends JFrame {
 	
@@ -28,7 +32,6 @@ public class ProfileUpdater extends JFrame {
 	
 	private File file;
 	private JFileChooser fileChooser;
-	private Encryption encryption;
 	
 	public ProfileUpdater() {
 		setUpFrame();
@@ -51,7 +54,7 @@ public class ProfileUpdater extends JFrame {
 		this.setBackground(new Color(255,161,161));
 		this.setDefaultCloseOperation(EXIT_ON_CLOSE);
 		
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		this.setIconImage(logo.getImage());
 		
 		UIManager UI = new UIManager();
@@ -62,7 +65,7 @@ public class ProfileUpdater extends JFrame {
 	
 	public void initComponents() {
 		fileChooser = new JFileChooser();
-		encryption = new Encryption();
+		fileChooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
 		
 		mainPanel = new JPanel();
 		mainPanel.setBackground(new Color(255,161,161));
@@ -84,16 +87,14 @@ public class ProfileUpdater extends JFrame {
 		imagePanel.setBackground(new Color(255,161,161));
 		
 		titleLabel = new JLabel("TamoStudy Profile Updater");
-		tamoInfoImage = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("info.png")));
-		mainImageLabel = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("use-profileUpdater.png")));
-		selectVersionLabel = new JLabel("Select Version:");
+		tamoInfoImage = new JLabel(IconCache.get("info.png"));
+		mainImageLabel = new JLabel(IconCache.get("use-profileUpdater.png"));
+		selectVersionLabel = new JLabel("Update To:");
 		selectFileButton = new JButton("Open Profile File");
 		
 		versionBox = new JComboBox();
-		versionBox.addItem("Open to Select Version");
-		versionBox.addItem("alpha 0.4.1");
-		versionBox.addItem("alpha 0.5.0");
-		versionBox.addItem("alpha 0.6.2");
+		versionBox.addItem("Latest Version");
+		versionBox.addItem("beta 2.0 (convert to binary)");
 		
 		pathFileLabel = new JLabel("No File Opened");
 		
@@ -114,14 +115,7 @@ public class ProfileUpdater extends JFrame {
 		updateButton.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				try {
-					updateProfileFile();
-					welcomeGUI gui = new welcomeGUI();
-					hideWindow();
-					
-				} catch (IOException e1) {
-					// TODO Auto-generated catch block
-				}
+				updateProfileFile();
 			}
 		});
 	}
@@ -163,136 +157,87 @@ public class ProfileUpdater extends JFrame {
 		}
 	}
 	
-	public void updateProfileFile() throws IOException {
-		if(this.file == null || versionBox.getSelectedItem().toString() == "Open to Select Version") {
-			System.out.println("yes");
-			return;
-		}
-		
-		String version = versionBox.getSelectedItem().toString();
-		if(version == "alpha 0.4.1") {
-			updateVersion(0);
-			return;
-		}
-		
-		if(version == "alpha 0.5.0" || version == "alpha 0.6.2") {
-			updateVersion(1);
+	/*
+	 * Updates the selected profile file, or every profile file of the selected folder, in the background
+	 * With "beta 2.0 (convert to binary)" each updated profile is also written as a binary profile.
+	 * The results are shown once every file is done, after a single profile the welcome window opens.
+	 */
+	public void updateProfileFile() {
+		if(this.file == null)
 			return;
-		}
 		
+		final File selected = file;
+		final boolean toBinary = versionBox.getSelectedIndex() == 1;
+		updateButton.setEnabled(false);
+		selectFileButton.setEnabled(false);
 		
-	}
-	
-	public void updateVersion(int num) throws IOException {
-		if(num == 0) {
-			BufferedReader br = new BufferedReader(new FileReader(file));
+		new SwingWorker<List<String>, Void>() {
+			private boolean failed;
 			
-			String line;
-			while ((line = (br.readLine())) != null) {
-				if(!line.equals("")) {
-					String old = line;
-					String[] oldDetails = line.split(",");
-					
-					for(int i = 0; i < oldDetails.length; i++) {
-						System.out.print("olddetails["+i+"] = " + oldDetails[i] + ",");
-					}
-
-					
-					String[] newDetails = new String[13];
-					
-					newDetails[0] = oldDetails[0];
-					
-					
-					for(int i = 1; i < 10; i++) {
-						newDetails[i] = oldDetails[i + 1];
-					}
-					
-					newDetails[10] = "default";
-					newDetails[11] = "0";
-					newDetails[12] = "0";
-					
-					System.out.println("\n");
-					
-					for(int i = 0; i < newDetails.length; i++) {
-						System.out.print("newdetails["+i+"] = " + newDetails[i] + ",");
-					}
-					
-					String newInfo = String.join(",", newDetails);
-					System.out.println("\nnewinfo = " + newInfo);
-					newInfo = encryption.encrypt(newInfo);
-					
-					File fnew = new File(file.getAbsolutePath());
-					
-					try {
-						FileWriter writer = new FileWriter(fnew, false);
-						writer.write(newInfo);
-						writer.close();
-						return;
-						
-					} catch (IOException e) {
-						
-					} catch (ArrayIndexOutOfBoundsException e) {
-						
+			@Override
+			protected List<String> doInBackground() {
+				//A folder: every profile file in it is updated in parallel
+				List<ProfileMigrations.Result> results = selected.isDirectory()
+						? ProfileMigrations.migrateAll(selected)
+						: ProfileMigrations.migrateAll(Collections.singletonList(selected));
+				
+				List<String> lines = new ArrayList<String>();
+				for(ProfileMigrations.Result result : results) {
+					String line = result.toString();
+					if(result.error != null) {
+						failed = true;
+					} else if(toBinary && !BinaryProfile.isBinary(result.file)) {
+						line += convert(result.file);
 					}
-					
+					lines.add(line);
 				}
+				return lines;
 			}
-		}
-		
-		
-		if(num == 1) {
-			BufferedReader br = new BufferedReader(new FileReader(file));
 			
-			String line;
-			while ((line = (br.readLine())) != null) {
-				if(!line.equals("")) {
-					String old = line;
-					String[] oldDetails = line.split(",");
-					
-					for(int i = 0; i < oldDetails.length; i++) {
-						System.out.print("olddetails["+i+"] = " + oldDetails[i] + ",");
-					}
-
-					
-					String[] newDetails = new String[13];
-					
-					newDetails[0] = oldDetails[0];
-					
-					
-					for(int i = 1; i < 12; i++) {
-						newDetails[i] = oldDetails[i + 1];
-					}
-					
-					newDetails[12] = "0";
-					
-					System.out.println("\n");
-					
-					for(int i = 0; i < newDetails.length; i++) {
-						System.out.print("newdetails["+i+"] = " + newDetails[i] + ",");
-					}
-					
-					String newInfo = String.join(",", newDetails);
-					System.out.println("\nnewinfo = " + newInfo);
-					newInfo = encryption.encrypt(newInfo);
-					
-					File fnew = new File(file.getAbsolutePath());
-					
-					try {
-						FileWriter writer = new FileWriter(fnew, false);
-						writer.write(newInfo);
-						writer.close();
-						return;
-						
-					} catch (IOException e) {
-						
-					} catch (ArrayIndexOutOfBoundsException e) {
-						
-					}
-					
+			@Override
+			protected void done() {
+				updateButton.setEnabled(true);
+				selectFileButton.setEnabled(true);
+				
+				List<String> lines;
+				try {
+					lines = get();
+				} catch (Exception e) {
+					JOptionPane.showMessageDialog(ProfileUpdater.this, "Could not update profile:\n" + e.getMessage(), "Profile Updater", JOptionPane.ERROR_MESSAGE);
+					return;
+				}
+				
+				if(lines.isEmpty()) {
+					JOptionPane.showMessageDialog(ProfileUpdater.this, "No profile files found", "Profile Updater", JOptionPane.INFORMATION_MESSAGE);
+					return;
+				}
+				JOptionPane.showMessageDialog(ProfileUpdater.this, String.join("\n", lines), "Profile Updater",
+						failed ? JOptionPane.ERROR_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+				
+				if(!failed && !selected.isDirectory()) {
+					welcomeGUI gui = new welcomeGUI();
+					hideWindow();
 				}
 			}
-		}
-		
+			
+			/*
+			 * Writes the binary profile next to the text profile, e.g. profile.txt -> profile.tamo
+			 */
+			private String convert(File textFile) {
+				String path = textFile.getAbsolutePath();
+				if(path.endsWith(".txt"))
+					path = path.substring(0, path.length() - 4);
+				File binaryFile = new File(path + ".tamo");
+				
+				try {
+					BinaryProfile.convert(textFile, binaryFile);
+					return ", saved as " + binaryFile.getName();
+				} catch (Exception e) {
+					failed = true;
+					return ", converting failed (" + e.getMessage() + ")";
+				}
+			}
+		}.execute();
 	}
 	
 	/*
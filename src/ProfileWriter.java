@@ -0,0 +1,129 @@
+/**
+ * @description Crash-safe writes of profile files
+ *
+ * @purpose Writing straight into the live profile file loses the whole profile if TamoStudy crashes
+ * (or the computer loses power) halfway through. Every profile file is instead written to a temporary
+ * file in the same folder, forced to disk, then renamed over the old file in one atomic step.
+ *
+ * Saves that happen close together (a purchase followed by an achievement save) are merged:
+ * writeLater keeps only the newest contents of each file and writes them once, COALESCE_MILLIS
+ * after the first save, so a burst of saves costs a single disk sync.
+ * Queued writes are flushed at exit by PersistenceService.
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ProfileWriter {
+
+	private static final long COALESCE_MILLIS = 500;
+
+	//Newest unwritten contents of each file, by absolute path
+	private static final Map<String, Pending> pending = new HashMap<String, Pending>();
+	private static final Object writeLock = new Object();
+
+	private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "TamoStudy-profile-writer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private static class Pending {
+		File file;
+		byte[] data;
+		Runnable afterWrite;
+	}
+
+	/*
+	 * Writes the data to a temporary file, forces it to disk and renames it over the file
+	 */
+	public static void writeAtomically(File file, byte[] data) throws IOException {
+		Path target = file.getAbsoluteFile().toPath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		}
+
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/*
+	 * Queues the data to be written to the file shortly
+	 * If the file already has a queued write, the new data replaces it.
+	 * afterWrite (may be null) runs once the newest data is safely on disk.
+	 */
+	public static void writeLater(File file, byte[] data, Runnable afterWrite) {
+		final String key = file.getAbsolutePath();
+		synchronized(pending) {
+			Pending write = pending.get(key);
+			if(write == null) {
+				write = new Pending();
+				write.file = file;
+				pending.put(key, write);
+
+				flusher.schedule(new Runnable() {
+					@Override
+					public void run() {
+						flush(key);
+					}
+				}, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			write.data = data;
+			write.afterWrite = afterWrite;
+		}
+	}
+
+	/*
+	 * Writes the queued data of the file right away, used before a profile file is read
+	 */
+	public static void flush(File file) {
+		flush(file.getAbsolutePath());
+	}
+
+	/*
+	 * Writes all queued data right away
+	 */
+	public static void flushAll() {
+		List<String> keys;
+		synchronized(pending) {
+			keys = new ArrayList<String>(pending.keySet());
+		}
+		for(String key : keys) {
+			flush(key);
+		}
+	}
+
+	private static void flush(String key) {
+		synchronized(writeLock) {
+			Pending write;
+			synchronized(pending) {
+				write = pending.remove(key);
+			}
+			if(write == null)
+				return;
+
+			try {
+				writeAtomically(write.file, write.data);
+				if(write.afterWrite != null)
+					write.afterWrite.run();
+			} catch (Exception e) {
+				System.out.println("Writing " + write.file + " failed due to exception." + e);
+			}
+		}
+	}
+}
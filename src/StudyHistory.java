@@ -0,0 +1,327 @@
+/**
+ * @description History of every focus session of a profile
+ *
+ * @purpose The profile only keeps the total focus time, so a session's detail was lost as soon as it was
+ * added to the total. Every session is now kept as an event (start, planned length, actual length,
+ * completed or broken, tokens earned) and appended to "<profile>.history" (see ProfileStore.companionFile).
+ *
+ * In memory the sessions are stored in columns (one primitive array per field) instead of one object
+ * per session. Focus time, sessions and tokens are also summed per day, and prefix sums over the days
+ * answer "focus time on a day / in a week / during a streak" in O(1) without rescanning the sessions.
+ *
+ * Record layout (big endian, 24 bytes): start(long), planned(int), actual(int), tokens(int), flags(int)
+ */
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StudyHistory {
+
+	private static final int RECORD_SIZE = 24;
+	private static final int COMPLETED = 1;
+
+	//Histories that were loaded during this run, so rebuilding a window doesn't read the file again
+	private static final Map<String, StudyHistory> loaded = new HashMap<String, StudyHistory>();
+
+	private File historyFile;
+
+	/*
+	 * Session columns, index i is the i-th session
+	 */
+	private int size;
+	private long[] start = new long[16];
+	private int[] planned = new int[16];
+	private int[] actual = new int[16];
+	private int[] tokens = new int[16];
+	private byte[] completed = new byte[16];
+
+	/*
+	 * Per-day columns, index d is the day firstDay + d
+	 * The prefix arrays have one extra element: prefix[d] is the sum of days 0..d-1
+	 */
+	private long firstDay = Long.MIN_VALUE;
+	private int days;
+	private int[] daySeconds = new int[0];
+	private long[] secondsPrefix = new long[1];
+	private long[] sessionsPrefix = new long[1];
+	private long[] tokensPrefix = new long[1];
+	private int[] streak = new int[0];	//consecutive days with focus time, ending at the day
+	private int longestStreak;
+	private int completedCount;
+
+	/*
+	 * History of the profile with the username, read from the file the first time it is needed
+	 * Reading waits for queued saves, so the first call is made off the EDT (see welcomeGUI.openProfile).
+	 * profileFile may be null, then the history is only kept in memory
+	 */
+	public static synchronized StudyHistory open(File profileFile, String username) {
+		if(profileFile == null)
+			return new StudyHistory(null);
+
+		File historyFile = ProfileStore.companionFile(profileFile, username, ".history");
+		String key = historyFile.getAbsolutePath();
+		StudyHistory history = loaded.get(key);
+		if(history == null) {
+			history = new StudyHistory(historyFile);
+			loaded.put(key, history);
+		}
+		return history;
+	}
+
+	private StudyHistory(File historyFile) {
+		this.historyFile = historyFile;
+		if(historyFile == null)
+			return;
+
+		try {
+			load();
+		} catch (IOException e) {
+			System.out.println("Loading study history failed due to exception." + e);
+		}
+	}
+
+	/*
+	 * Records a session that just ended, the record is appended to the file by the PersistenceService
+	 */
+	public void record(long startMillis, int plannedSeconds, int actualSeconds, boolean sessionCompleted, int earnedTokens) {
+		add(startMillis, plannedSeconds, actualSeconds, earnedTokens, sessionCompleted ? COMPLETED : 0);
+
+		if(historyFile != null) {
+			ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+			record.putLong(startMillis);
+			record.putInt(plannedSeconds);
+			record.putInt(actualSeconds);
+			record.putInt(earnedTokens);
+			record.putInt(sessionCompleted ? COMPLETED : 0);
+			PersistenceService.saveHistory(historyFile, record.array());
+		}
+	}
+
+	/*
+	 * Single sessions, index 0 is the oldest session
+	 */
+	public long getStart(int session) {
+		return start[session];
+	}
+
+	public int getPlannedSeconds(int session) {
+		return planned[session];
+	}
+
+	public int getActualSeconds(int session) {
+		return actual[session];
+	}
+
+	public int getTokens(int session) {
+		return tokens[session];
+	}
+
+	public boolean isCompleted(int session) {
+		return completed[session] == COMPLETED;
+	}
+
+	/*
+	 * Aggregates
+	 */
+	public int getSessionCount() {
+		return size;
+	}
+
+	public int getCompletedCount() {
+		return completedCount;
+	}
+
+	//Focus seconds from day "from" to day "to" (epoch days, both included)
+	public long getFocusSeconds(long from, long to) {
+		return rangeSum(secondsPrefix, from, to);
+	}
+
+	public long getSessions(long from, long to) {
+		return rangeSum(sessionsPrefix, from, to);
+	}
+
+	public long getTokens(long from, long to) {
+		return rangeSum(tokensPrefix, from, to);
+	}
+
+	public long getFocusSecondsOn(long day) {
+		return getFocusSeconds(day, day);
+	}
+
+	//The 7 days ending at the day
+	public long getFocusSecondsInWeek(long lastDay) {
+		return getFocusSeconds(lastDay - 6, lastDay);
+	}
+
+	//Days in a row with focus time, ending at the day (or the day before, if nothing was focused on the day yet)
+	public int getStreak(long day) {
+		if(days == 0)
+			return 0;
+		int d = (int) (day - firstDay);
+		if(d >= 0 && d < days && streak[d] > 0)
+			return streak[d];
+		d--;
+		if(d >= 0 && d < days)
+			return streak[d];
+		return 0;
+	}
+
+	//Focus seconds during the streak that getStreak(day) returns
+	public long getStreakFocusSeconds(long day) {
+		int length = getStreak(day);
+		if(length == 0)
+			return 0;
+		long end = getFocusSecondsOn(day) > 0 ? day : day - 1;
+		return getFocusSeconds(end - length + 1, end);
+	}
+
+	public int getLongestStreak() {
+		return longestStreak;
+	}
+
+	public static long today() {
+		return LocalDate.now().toEpochDay();
+	}
+
+	/*
+	 * Appends records to the history file, runs on the persistence thread
+	 */
+	static void write(File historyFile, List<byte[]> records) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+		for(byte[] record : records) {
+			buffer.put(record);
+		}
+		buffer.flip();
+
+		try (FileChannel channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(false);
+		}
+	}
+
+	private void load() throws IOException {
+		if(!historyFile.exists())
+			return;
+
+		PersistenceService.awaitFlush(historyFile);
+		try (FileChannel channel = FileChannel.open(historyFile.toPath(), StandardOpenOption.READ)) {
+			//A partially written record at the end (crash mid-append) is ignored
+			long complete = channel.size() / RECORD_SIZE;
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, complete * RECORD_SIZE);
+			while(buffer.hasRemaining()) {
+				add(buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+			}
+		}
+	}
+
+	private void add(long startMillis, int plannedSeconds, int actualSeconds, int earnedTokens, int flags) {
+		if(size == start.length) {
+			int capacity = size * 2;
+			start = Arrays.copyOf(start, capacity);
+			planned = Arrays.copyOf(planned, capacity);
+			actual = Arrays.copyOf(actual, capacity);
+			tokens = Arrays.copyOf(tokens, capacity);
+			completed = Arrays.copyOf(completed, capacity);
+		}
+		start[size] = startMillis;
+		planned[size] = plannedSeconds;
+		actual[size] = actualSeconds;
+		tokens[size] = earnedTokens;
+		completed[size] = (byte) (flags & COMPLETED);
+		completedCount += completed[size];
+		size++;
+
+		addToDay(Instant.ofEpochMilli(startMillis).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay(), actualSeconds, earnedTokens);
+	}
+
+	/*
+	 * Adds a session to the day columns
+	 * Sessions are almost always added to the last day, then only the last prefix element changes
+	 */
+	private void addToDay(long day, int seconds, int earnedTokens) {
+		if(firstDay == Long.MIN_VALUE)
+			firstDay = day;
+		if(day < firstDay)
+			shiftFirstDay(day);
+
+		int d = (int) (day - firstDay);
+		if(d >= days)
+			growDays(d + 1);
+
+		daySeconds[d] += seconds;
+		for(int i = d + 1; i <= days; i++) {
+			secondsPrefix[i] += seconds;
+			sessionsPrefix[i] += 1;
+			tokensPrefix[i] += earnedTokens;
+		}
+
+		//Streaks only change when a day gets its first focus time
+		if(daySeconds[d] == seconds && seconds > 0) {
+			for(int i = d; i < days; i++) {
+				streak[i] = daySeconds[i] > 0 ? (i > 0 ? streak[i - 1] : 0) + 1 : 0;
+				if(i > d && streak[i] == 0)
+					break;
+			}
+			for(int i = d; i < days && streak[i] > 0; i++) {
+				longestStreak = Math.max(longestStreak, streak[i]);
+			}
+		}
+	}
+
+	private void growDays(int newDays) {
+		int capacity = Math.max(newDays, daySeconds.length * 2);
+		if(capacity > daySeconds.length) {
+			daySeconds = Arrays.copyOf(daySeconds, capacity);
+			streak = Arrays.copyOf(streak, capacity);
+			secondsPrefix = Arrays.copyOf(secondsPrefix, capacity + 1);
+			sessionsPrefix = Arrays.copyOf(sessionsPrefix, capacity + 1);
+			tokensPrefix = Arrays.copyOf(tokensPrefix, capacity + 1);
+		}
+		for(int i = days + 1; i <= newDays; i++) {
+			secondsPrefix[i] = secondsPrefix[days];
+			sessionsPrefix[i] = sessionsPrefix[days];
+			tokensPrefix[i] = tokensPrefix[days];
+		}
+		days = newDays;
+	}
+
+	/*
+	 * A session before the first day (the clock was changed), move every day column
+	 */
+	private void shiftFirstDay(long day) {
+		int shift = (int) (firstDay - day);
+		int oldDays = days;
+		growDays(days + shift);
+		System.arraycopy(daySeconds, 0, daySeconds, shift, oldDays);
+		System.arraycopy(streak, 0, streak, shift, oldDays);
+		System.arraycopy(secondsPrefix, 0, secondsPrefix, shift, oldDays + 1);
+		System.arraycopy(sessionsPrefix, 0, sessionsPrefix, shift, oldDays + 1);
+		System.arraycopy(tokensPrefix, 0, tokensPrefix, shift, oldDays + 1);
+		Arrays.fill(daySeconds, 0, shift, 0);
+		Arrays.fill(streak, 0, shift, 0);
+		Arrays.fill(secondsPrefix, 0, shift, 0);
+		Arrays.fill(sessionsPrefix, 0, shift, 0);
+		Arrays.fill(tokensPrefix, 0, shift, 0);
+		firstDay = day;
+	}
+
+	private long rangeSum(long[] prefix, long from, long to) {
+		if(days == 0)
+			return 0;
+		int a = (int) Math.max(0, Math.min(days, from - firstDay));
+		int b = (int) Math.max(0, Math.min(days, to - firstDay + 1));
+		if(b <= a)
+			return 0;
+		return prefix[b] - prefix[a];
+	}
+}
@@ -3,14 +3,26 @@
  * @description: Tamo Object class
  */
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
 
 public class Tamo {
+	/*
+	 * Names of the properties that fire change events
+	 */
+	public static final String NAME = "tamoName";
+	public static final String LEVEL = "level";
+	public static final String HAPPINESS = "happiness";
+	public static final String HUNGER = "hunger";
+	public static final String ID = "tamoId";
+	
+	private final PropertyChangeSupport changes = new PropertyChangeSupport(this);
+	
 	private String name;
-	private int level;
-	private int experience;
-	private int happiness;
-	private int hunger;
+	//Level, experience, happiness and hunger, changed atomically (see TamoState)
+	private final TamoState state;
 	private int id;
 	
 	/*
@@ -20,10 +32,7 @@ public class Tamo {
 	 */
 	public Tamo() {
 		this.name = "null";
-		this.level = -1;
-		this.experience = -1;
-		this.happiness = -1;
-		this.hunger = -1;
+		this.state = new TamoState(-1, -1, -1, -1);
 		this.id = 0;
 	}
 	
@@ -34,10 +43,7 @@ public class Tamo {
 	 */
 	public Tamo(String name) {
 		this.name = name;
-		this.level = 0;
-		this.experience = 0;
-		this.happiness = 5;
-		this.hunger = 5;
+		this.state = new TamoState(0, 0, 5, 5);
 		
 		//TODO: Random ID
 		this.id = ThreadLocalRandom.current().nextInt(1, 3 + 1);
@@ -50,8 +56,7 @@ public class Tamo {
 	 */
 	public Tamo(String name, int id, int happiness, int hunger) {
 		this.name = name;
-		this.happiness = happiness;
-		this.hunger = hunger;
+		this.state = new TamoState(0, 0, happiness, hunger);
 		this.id = id;
 	}
 
@@ -61,81 +66,110 @@ public class Tamo {
 	}
 	
 	public int getLevel() {
-		return level;
+		return state.get(TamoState.LEVEL);
 	}
 	
 	public int getHappiness() {
-		return happiness;
+		return state.get(TamoState.HAPPINESS);
 	}
 	
 	public int getHunger() {
-		return hunger;
+		return state.get(TamoState.HUNGER);
 	}
 	
-	//setters
+	//setters, a change is published to the listeners
 	public void setHappiness(int happiness) {
-		this.happiness = happiness;
+		changed(HAPPINESS, state.set(TamoState.HAPPINESS, happiness));
 	}
 	
 	public void setHunger(int hunger) {
-		this.hunger = hunger;
+		changed(HUNGER, state.set(TamoState.HUNGER, hunger));
+	}
+	
+	/*
+	 * Adds to the happiness / hunger without losing a change made at the same time by another thread
+	 * The result stays between min and max, a value outside of them is not changed.
+	 */
+	public void addHappiness(int delta, int min, int max) {
+		changed(HAPPINESS, state.add(TamoState.HAPPINESS, delta, min, max));
+	}
+	
+	public void addHunger(int delta, int min, int max) {
+		changed(HUNGER, state.add(TamoState.HUNGER, delta, min, max));
+	}
+	
+	/*
+	 * Replaces the happiness / hunger with the function of its current value, atomically
+	 */
+	public void updateHappiness(IntUnaryOperator function) {
+		changed(HAPPINESS, state.update(TamoState.HAPPINESS, function));
+	}
+	
+	public void updateHunger(IntUnaryOperator function) {
+		changed(HUNGER, state.update(TamoState.HUNGER, function));
 	}
 	
-	//increment levels and decrement
+	/*
+	 * Level, experience, happiness and hunger of one moment, see TamoState.get(state, field)
+	 */
+	public long getState() {
+		return state.get();
+	}
+	
+	/*
+	 * Fires the change of one field with the values of the compare-and-set that made it
+	 */
+	private void changed(String property, long change) {
+		changes.firePropertyChange(property, TamoState.before(change), TamoState.after(change));
+	}
+	
+	public void addPropertyChangeListener(PropertyChangeListener listener) {
+		changes.addPropertyChangeListener(listener);
+	}
+	
+	public void removePropertyChangeListener(PropertyChangeListener listener) {
+		changes.removePropertyChangeListener(listener);
+	}
+	
+	//increment levels and decrement, the levels stay between 0 and 10
 	public void incrementHappiness() {
-		if(this.happiness >= 0 && this.happiness < 10) {
-			this.happiness = happiness++;
-		} else {
-			//Happiness level will not change because max already reached...
-		}
-		
+		addHappiness(1, 0, 10);
 	}
 	
 	public void incrementHunger() {
-		if(this.hunger >= 0 && this.hunger < 10) {
-			this.hunger = hunger++;
-		} else {
-			//hunger level will not change because max already reached...
-		}
+		addHunger(1, 0, 10);
 	}
 	
 	public void decrementHappiness() {
-		if(this.happiness > 0 && this.happiness <= 10) {
-			this.happiness = happiness--;
-		} else {
-			//happy level already lowest... 
-		}
+		addHappiness(-1, 0, 10);
 	}
 	
 	public void decrementHunger() {
-		if(this.hunger > 0 && this.hunger <= 10) {
-			this.hunger = hunger--;
-		} else {
-			//happy level already lowest... 
-		}
+		addHunger(-1, 0, 10);
 	}
 	
 	@Override
 	public String toString() {
-		return name + "," + id + "," + happiness + "," + hunger;
+		long now = state.get();
+		return name + "," + id + "," + TamoState.get(now, TamoState.HAPPINESS) + "," + TamoState.get(now, TamoState.HUNGER);
 	}
 
 	public void setName(String tamoName) {
+		String old = this.name;
 		this.name = tamoName;
-		
+		changes.firePropertyChange(NAME, old, tamoName);
 	}
 
 	public void setLevel(int i) {
-		this.level = i;
-		
+		changed(LEVEL, state.set(TamoState.LEVEL, i));
 	}
 
 	public int getExperience() {
-		return experience;
+		return state.get(TamoState.EXPERIENCE);
 	}
 
 	public void setExperience(int experience) {
-		this.experience = experience;
+		state.set(TamoState.EXPERIENCE, experience);
 	}
 
 	public int getId() {
@@ -143,7 +177,9 @@ public class Tamo {
 	}
 
 	public void setId(int id) {
+		int old = this.id;
 		this.id = id;
+		changes.firePropertyChange(ID, old, id);
 	}
 
 }
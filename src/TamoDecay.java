@@ -0,0 +1,98 @@
+/**
+ * @description How much the Tamo's hunger and happiness drop while the user is away
+ *
+ * @purpose The decay used to be a chain of if blocks in GUI.updateHappyHunger, one per absence length,
+ * each with its own copy of the clamping. The curve is now a table: the loss of hunger and happiness for
+ * every number of days away, up to the day the Tamo dies. The values after any absence are one table
+ * lookup and one clamp, so the decay has no GUI and can be evaluated for any number of profiles.
+ *
+ *   days away   hunger   happiness
+ *   0           -0       -0
+ *   1           -2       -2
+ *   2 - 3       -4       -3
+ *   4 - 7       -5       -4
+ *   8 - 29      empty    lowest (1)
+ *   30+         the Tamo dies
+ */
+
+import java.util.function.IntUnaryOperator;
+
+public class TamoDecay {
+
+	public static final int MAX = 10;
+	public static final int MIN_HUNGER = 0;
+	public static final int MIN_HAPPINESS = 1;
+
+	//Days away after which the Tamo dies
+	public static final int DEATH_DAYS = 30;
+
+	/*
+	 * Curve: from BUCKET_DAYS[i] days away on, hunger drops by HUNGER_LOSS[i] and happiness by HAPPINESS_LOSS[i]
+	 */
+	private static final int[] BUCKET_DAYS = {0, 1, 2, 4, 8};
+	private static final int[] HUNGER_LOSS = {0, 2, 4, 5, MAX};
+	private static final int[] HAPPINESS_LOSS = {0, 2, 3, 4, MAX};
+
+	//The curve expanded to one entry per day away, index DEATH_DAYS - 1 is the last day the Tamo survives
+	private static final int[] hungerLoss = new int[DEATH_DAYS];
+	private static final int[] happinessLoss = new int[DEATH_DAYS];
+
+	static {
+		for(int day = 0, bucket = 0; day < DEATH_DAYS; day++) {
+			if(bucket + 1 < BUCKET_DAYS.length && day >= BUCKET_DAYS[bucket + 1])
+				bucket++;
+			hungerLoss[day] = HUNGER_LOSS[bucket];
+			happinessLoss[day] = HAPPINESS_LOSS[bucket];
+		}
+	}
+
+	/*
+	 * Days away: today minus the day of the last login, in epoch days
+	 * A negative number (the clock was turned back) counts as a login on the same day.
+	 */
+	public static boolean dies(long daysAway) {
+		return daysAway >= DEATH_DAYS;
+	}
+
+	public static int hunger(int hunger, long daysAway) {
+		if(daysAway <= 0)
+			return hunger;
+		return clamp(hunger - hungerLoss[day(daysAway)], MIN_HUNGER);
+	}
+
+	public static int happiness(int happiness, long daysAway) {
+		if(daysAway <= 0)
+			return Math.min(happiness, MAX);
+		return clamp(happiness - happinessLoss[day(daysAway)], MIN_HAPPINESS);
+	}
+
+	/*
+	 * Applies the decay to the Tamo, returns true if the Tamo died
+	 * A Tamo that dies keeps its values, the user picks a new Tamo (see GUI.tamoDeath)
+	 */
+	public static boolean decay(Tamo tamo, final long daysAway) {
+		if(dies(daysAway))
+			return true;
+		tamo.updateHunger(new IntUnaryOperator() {
+			@Override
+			public int applyAsInt(int hunger) {
+				return hunger(hunger, daysAway);
+			}
+		});
+		tamo.updateHappiness(new IntUnaryOperator() {
+			@Override
+			public int applyAsInt(int happiness) {
+				return happiness(happiness, daysAway);
+			}
+		});
+		return false;
+	}
+
+	private static int day(long daysAway) {
+		return (int) Math.min(daysAway, DEATH_DAYS - 1);
+	}
+
+	private static int clamp(int value, int min) {
+		return Math.max(min, Math.min(MAX, value));
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * @description Rules of what studying earns and what food costs
+ *
+ * @purpose The token income, the hearts and levels for focus time and the food prices were written into
+ * the main window and the food shop, so they could only be changed (and tried out) through the GUI.
+ * They are kept here, without any GUI, and used by the windows and by the TamoSimulator alike, so a
+ * balancing change is made in one place and can be simulated before it is shipped.
+ */
+
+public class TamoEconomy {
+
+	//Every 3600 seconds (1 hour) = 50 Tamo Tokens, so 1 Tamo Token is earned every 72 seconds
+	public static final int TOKENS_PER_HOUR = 50;
+	//1 heart for every half hour of a session
+	public static final int SECONDS_PER_HEART = 1800;
+	//Every 24 hours, the Tamo gains 1 level
+	public static final int SECONDS_PER_LEVEL = 86400;
+
+	/*
+	 * Food of the food shop: price in Tamo Tokens and hunger points it fills
+	 */
+	public static final int FOOD_COUNT = 3;
+	public static final int[] FOOD_PRICES = {100, 200, 800};
+	public static final int[] FOOD_HUNGER = {1, 3, TamoDecay.MAX};
+
+	public static int tokensFor(int seconds) {
+		return (TOKENS_PER_HOUR * seconds) / 3600;
+	}
+
+	public static int heartsFor(int seconds) {
+		return seconds / SECONDS_PER_HEART;
+	}
+
+	public static int level(int totalTime) {
+		return totalTime / SECONDS_PER_LEVEL;
+	}
+
+	/*
+	 * Credits a focus session to the profile: total time, tokens, happiness and level
+	 * Returns the tokens earned
+	 */
+	public static int study(Profile p, int seconds) {
+		p.setTotalTime(p.getTotalTime() + seconds);
+
+		int tokens = tokensFor(seconds);
+		p.setMoney(p.getMoney() + tokens);
+
+		//A Tamo that already has full happiness is not rewarded
+		p.getTamo().addHappiness(heartsFor(seconds), 0, TamoDecay.MAX);
+
+		p.getTamo().setLevel(level(p.getTotalTime()));
+		return tokens;
+	}
+
+	/*
+	 * The Tamo loses happiness when a session is broken
+	 */
+	public static void breakSession(Profile p) {
+		p.getTamo().addHappiness(-1, TamoDecay.MIN_HAPPINESS, TamoDecay.MAX);
+	}
+
+	public static boolean canBuy(Profile p, int food) {
+		return p.getMoney() >= FOOD_PRICES[food];
+	}
+
+	/*
+	 * Buys the food and feeds it to the Tamo, the hunger never goes over the maximum
+	 */
+	public static void feed(Profile p, int food) {
+		p.getTamo().addHunger(FOOD_HUNGER[food], TamoDecay.MIN_HUNGER, TamoDecay.MAX);
+		p.setMoney(p.getMoney() - FOOD_PRICES[food]);
+	}
+
+	/*
+	 * A new Tamo after the old one died, the profile's statistics start over
+	 */
+	public static void resetTamo(Profile p, String name, int id) {
+		p.setTotalTime(0);
+		p.setMoney(0);
+		p.setCurrentBackground(0);
+		p.getTamo().setName(name);
+		p.getTamo().setHappiness(5);
+		p.getTamo().setHunger(5);
+		p.getTamo().setId(id);
+	}
+}
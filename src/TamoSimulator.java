@@ -0,0 +1,203 @@
+/**
+ * @description Simulates months of play of many profiles without any window
+ *
+ * @purpose Trying out a balancing change (token income, food prices, decay) used to mean clicking through
+ * the GUI for days. The simulator drives real Profile and Tamo objects through a schedule of logins and
+ * study sessions, day by day, with the same rules the windows use (TamoEconomy, TamoDecay), and reports
+ * the token economy, the level-ups and how many Tamos died:
+ *
+ *   java TamoStudy --simulate <profiles> <days> [seed]
+ *
+ * Every profile gets its own random generator, seeded from the seed and the profile's number, so a run
+ * gives the same report for the same seed however many cores share the work. The profiles are simulated
+ * as a parallel stream and the reports of the profiles are summed.
+ */
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+public class TamoSimulator {
+
+	public static final String SIMULATE = "--simulate";
+
+	/*
+	 * How a simulated user plays
+	 */
+	public static class Schedule {
+		public final double loginChance;	//chance of logging in on a day
+		public final int sessions;			//sessions on a day with a login
+		public final int sessionMinutes;
+		public final double breakChance;	//chance of breaking a session, a broken session ends at a random time
+		public final int feedBelow;			//food is bought while the hunger is below this
+		public final int food;				//food that is bought, see TamoEconomy.FOOD_PRICES
+
+		public Schedule(double loginChance, int sessions, int sessionMinutes, double breakChance, int feedBelow, int food) {
+			this.loginChance = loginChance;
+			this.sessions = sessions;
+			this.sessionMinutes = sessionMinutes;
+			this.breakChance = breakChance;
+			this.feedBelow = feedBelow;
+			this.food = food;
+		}
+	}
+
+	//Logs in on most days, studies two 25 minute sessions and feeds the Tamo with plates
+	public static final Schedule DEFAULT_SCHEDULE = new Schedule(0.8, 2, 25, 0.15, 5, 1);
+
+	/*
+	 * Totals of a run, the report of one profile is added to the others
+	 */
+	public static class Report {
+		public long profiles;
+		public long days;
+		public long logins;
+		public long sessions;
+		public long brokenSessions;
+		public long tokensEarned;
+		public long tokensSpent;
+		public long foodBought;
+		public long levelUps;
+		public long deaths;
+		public long profilesWithDeath;
+		public long endHunger;
+		public long endHappiness;
+		public long endTokens;
+
+		public void add(Report other) {
+			profiles += other.profiles;
+			days += other.days;
+			logins += other.logins;
+			sessions += other.sessions;
+			brokenSessions += other.brokenSessions;
+			tokensEarned += other.tokensEarned;
+			tokensSpent += other.tokensSpent;
+			foodBought += other.foodBought;
+			levelUps += other.levelUps;
+			deaths += other.deaths;
+			profilesWithDeath += other.profilesWithDeath;
+			endHunger += other.endHunger;
+			endHappiness += other.endHappiness;
+			endTokens += other.endTokens;
+		}
+
+		@Override
+		public String toString() {
+			double n = Math.max(1, profiles);
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("%d profile(s), %d profile-days, %d logins, %d sessions (%d broken)%n",
+					profiles, days, logins, sessions, brokenSessions));
+			report.append(String.format("Tokens: %d earned, %d spent, %.1f earned per profile, %.1f left per profile%n",
+					tokensEarned, tokensSpent, tokensEarned / n, endTokens / n));
+			report.append(String.format("Food: %d bought, %.1f per profile%n", foodBought, foodBought / n));
+			report.append(String.format("Level-ups: %d, %.2f per profile%n", levelUps, levelUps / n));
+			report.append(String.format("Deaths: %d, %.2f%% of profiles lost a Tamo%n", deaths, 100.0 * profilesWithDeath / n));
+			report.append(String.format("At the end: hunger %.2f, happiness %.2f on average%n", endHunger / n, endHappiness / n));
+			return report.toString();
+		}
+	}
+
+	private final Schedule schedule;
+	private final int days;
+	private final long seed;
+
+	public TamoSimulator(Schedule schedule, int days, long seed) {
+		this.schedule = schedule;
+		this.days = days;
+		this.seed = seed;
+	}
+
+	/*
+	 * Simulates the profiles on all cores
+	 */
+	public Report run(long profiles) {
+		return LongStream.range(0, profiles).parallel()
+				.mapToObj(this::simulate)
+				.collect(Report::new, Report::add, Report::add);
+	}
+
+	/*
+	 * Plays one profile through every day of the schedule
+	 */
+	public Report simulate(long index) {
+		SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+		Report report = new Report();
+		report.profiles = 1;
+		report.days = days;
+
+		Profile p = new Profile("simulated" + index, "Tamo", 0);
+		int lastLogin = 0;
+		for(int day = 1; day <= days; day++) {
+			if(random.nextDouble() >= schedule.loginChance)
+				continue;
+			report.logins++;
+
+			if(TamoDecay.decay(p.getTamo(), day - lastLogin)) {
+				report.deaths++;
+				TamoEconomy.resetTamo(p, p.getTamo().getName(), random.nextInt(1, 4));
+			}
+			lastLogin = day;
+
+			for(int s = 0; s < schedule.sessions; s++) {
+				int seconds = schedule.sessionMinutes * 60;
+				if(random.nextDouble() < schedule.breakChance) {
+					seconds = random.nextInt(seconds);
+					TamoEconomy.breakSession(p);
+					report.brokenSessions++;
+				}
+
+				int level = p.getTamo().getLevel();
+				report.tokensEarned += TamoEconomy.study(p, seconds);
+				report.levelUps += Math.max(0, p.getTamo().getLevel() - level);
+				report.sessions++;
+			}
+
+			while(p.getTamo().getHunger() < schedule.feedBelow && TamoEconomy.canBuy(p, schedule.food)) {
+				TamoEconomy.feed(p, schedule.food);
+				report.tokensSpent += TamoEconomy.FOOD_PRICES[schedule.food];
+				report.foodBought++;
+			}
+		}
+
+		//Days away at the end of the run count as well
+		if(TamoDecay.dies(days + 1 - lastLogin))
+			report.deaths++;
+		report.profilesWithDeath = report.deaths > 0 ? 1 : 0;
+		report.endHunger = p.getTamo().getHunger();
+		report.endHappiness = p.getTamo().getHappiness();
+		report.endTokens = p.getMoney();
+		return report;
+	}
+
+	public static boolean isCommand(String[] args) {
+		return args.length > 0 && args[0].equals(SIMULATE);
+	}
+
+	/*
+	 * Runs the simulator from the command line, returns the exit code
+	 */
+	public static int run(String[] args) {
+		long profiles;
+		int days;
+		long seed;
+		try {
+			if(args.length < 3 || args.length > 4)
+				throw new NumberFormatException();
+			profiles = Long.parseLong(args[1]);
+			days = Integer.parseInt(args[2]);
+			seed = args.length == 4 ? Long.parseLong(args[3]) : 1;
+			if(profiles < 1 || days < 1)
+				throw new NumberFormatException();
+		} catch (NumberFormatException e) {
+			System.out.println("Usage: java TamoStudy " + SIMULATE + " <profiles> <days> [seed]");
+			return 2;
+		}
+
+		long start = System.nanoTime();
+		Report report = new TamoSimulator(DEFAULT_SCHEDULE, days, seed).run(profiles);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.print(report);
+		System.out.println(String.format("%.2f s, %.0f profile-days/sec", seconds, seconds > 0 ? report.days / seconds : 0.0));
+		return 0;
+	}
+}
@@ -0,0 +1,122 @@
+/**
+ * @description Level, experience, happiness and hunger of a Tamo in one atomic long
+ *
+ * @purpose The Tamo's values were plain ints changed with get/set pairs from the main window, the shops,
+ * the timer listeners and the persistence thread's snapshots, so two changes at the same time could
+ * lose one of them (and incrementHappiness and its siblings never changed anything at all). The four
+ * values are now packed into one AtomicLong, 16 bits each, and every change is a compare-and-set loop
+ * on the whole state: no update is lost, no lock is taken, and a reader always sees the four values of
+ * one moment.
+ *
+ * Each value is a signed 16 bit number (-32768 to 32767), values outside are clamped when they are set.
+ *
+ * set, add and update return the change they made: the field's value before and after the
+ * compare-and-set that succeeded, read them with before(change) and after(change).
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+public class TamoState {
+
+	/*
+	 * Fields of the state, the number is the position of its 16 bits
+	 */
+	public static final int LEVEL = 0;
+	public static final int EXPERIENCE = 1;
+	public static final int HAPPINESS = 2;
+	public static final int HUNGER = 3;
+
+	private static final int BITS = 16;
+	private static final long MASK = (1L << BITS) - 1;
+
+	private final AtomicLong state;
+
+	public TamoState(int level, int experience, int happiness, int hunger) {
+		long packed = 0;
+		packed = with(packed, LEVEL, level);
+		packed = with(packed, EXPERIENCE, experience);
+		packed = with(packed, HAPPINESS, happiness);
+		packed = with(packed, HUNGER, hunger);
+		this.state = new AtomicLong(packed);
+	}
+
+	/*
+	 * The whole state, read the fields with get(state, field)
+	 */
+	public long get() {
+		return state.get();
+	}
+
+	public int get(int field) {
+		return get(state.get(), field);
+	}
+
+	public static int get(long packed, int field) {
+		return (short) (packed >>> (field * BITS));
+	}
+
+	/*
+	 * Value of the field before and after a change returned by set, add or update
+	 */
+	public static int before(long change) {
+		return (int) (change >> 32);
+	}
+
+	public static int after(long change) {
+		return (int) change;
+	}
+
+	/*
+	 * Sets the field, returns the change
+	 */
+	public long set(int field, int value) {
+		while(true) {
+			long old = state.get();
+			long next = with(old, field, value);
+			if(state.compareAndSet(old, next))
+				return change(old, next, field);
+		}
+	}
+
+	/*
+	 * Adds delta to the field, the result stays between min and max
+	 * A field that is outside of min and max (e.g. -1 of a default Tamo) is not changed.
+	 * Returns the change.
+	 */
+	public long add(int field, int delta, int min, int max) {
+		while(true) {
+			long old = state.get();
+			int value = get(old, field);
+			if(value < min || value > max)
+				return change(old, old, field);
+
+			long next = with(old, field, (int) Math.max(min, Math.min(max, (long) value + delta)));
+			if(next == old || state.compareAndSet(old, next))
+				return change(old, next, field);
+		}
+	}
+
+	/*
+	 * Replaces the field with the function of its value, the function may run more than once
+	 * Returns the change.
+	 */
+	public long update(int field, IntUnaryOperator function) {
+		while(true) {
+			long old = state.get();
+			long next = with(old, field, function.applyAsInt(get(old, field)));
+			if(state.compareAndSet(old, next))
+				return change(old, next, field);
+		}
+	}
+
+	private static long change(long old, long next, int field) {
+		return ((long) get(old, field) << 32) | (get(next, field) & 0xFFFFFFFFL);
+	}
+
+	private static long with(long packed, int field, int value) {
+		int shift = field * BITS;
+		long bits = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value)) & MASK;
+		return (packed & ~(MASK << shift)) | (bits << shift);
+	}
+}
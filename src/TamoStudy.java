@@ -2,8 +2,10 @@
  * @author Anthony Narlock
  * @description The main driver of TamoStudy
  * @purpose This class's purpose is to launch TamoStudy by implementing a main function and launching the welcome GUI
+ * (or the command line ProfileTool / TamoSimulator when it is started with arguments)
  */
 
+import guicomponents.AssetPreloader;
 import java.io.IOException;
 
 public class TamoStudy {
@@ -11,6 +13,17 @@ public class TamoStudy {
 	//Main method
 	public static void main(String[] args) throws IOException {
 		
+		//Command line mode, see TamoSimulator and ProfileTool
+		if(TamoSimulator.isCommand(args)) {
+			System.exit(TamoSimulator.run(args));
+		}
+		if(ProfileTool.isCommand(args)) {
+			System.exit(ProfileTool.run(args));
+		}
+		
+		//Decodes the images in the background while the welcome GUI is shown
+		AssetPreloader.start();
+		
 		//Creates a new instance of the welcome GUI
 		welcomeGUI welcome = new welcomeGUI();
 		
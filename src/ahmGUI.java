@@ -1,6 +1,8 @@
 import javax.swing.*;
 
+import guicomponents.IconCache;
 import guicomponents.ahmPanel;
+import profile.Achievements;
 import static javax.swing.ScrollPaneConstants.*;
 import java.awt.*;
 import java.io.*;
@@ -22,7 +24,7 @@ public class ahmGUI extends JOptionPane {
 		this.profile = profile;
 		this.file = file;
 		
-		this.achievementPanels = new ahmPanel[8];
+		this.achievementPanels = new ahmPanel[Achievements.ACHIEVEMENT_COUNT];
 		setAchievementPanels();
 		
 		setUpFrame();
@@ -37,7 +39,7 @@ public class ahmGUI extends JOptionPane {
 	}
 	
 	public void setUpFrame() {
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		
 		UIManager UI = new UIManager();
 		UI.put("OptionPane.background", profile.getColor());
@@ -53,11 +55,8 @@ public class ahmGUI extends JOptionPane {
 	}
 	
 	public void setAchievementPanels() {
-		System.out.println("ahmString = " + profile.getAhm().getAhmString());
 		for(int i = 0; i < achievementPanels.length; i++) {
 			achievementPanels[i] = new ahmPanel(i, profile.getAhm().getIndicator(i), profile.getSettings().getLang().getIndicator());
-			System.out.println("Achievement Panel " + i + " " + achievementPanels[i].toString());
-			System.out.println("Achievement Indicator for " + i + " = " + profile.getAhm().getIndicator(i));
 		}
 		
 	}
@@ -83,7 +82,6 @@ public class ahmGUI extends JOptionPane {
 	public void setUpGUI() {
 		scrollPane.setViewportView(achievementPanel);
 		
-		System.out.println("achievementPanels length = " + achievementPanels.length);
 		guiPanel.add(scrollPane, BorderLayout.CENTER);
 		
 		for(int i = 0; i < achievementPanels.length; i++) {
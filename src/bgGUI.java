@@ -4,10 +4,12 @@ import java.awt.event.ActionListener;
 import java.io.File;
 
 import javax.swing.*;
+import guicomponents.IconCache;
 
 public class bgGUI extends JFrame {
 	private Profile p;
 	private File file;
+	private GUI focus;	//the main window, hidden while the shop is open
 	
 	private JPanel northPanel, centerPanel;
 	private JPanel mainPanel;
@@ -53,8 +55,13 @@ public class bgGUI extends JFrame {
 	}
 	
 	public bgGUI(Profile profile, File file) {
+		this(profile, file, null);
+	}
+	
+	public bgGUI(Profile profile, File file, GUI focus) {
 		this.p = profile;
 		this.file = file;
+		this.focus = focus;
 		
 		setUpFrame();
 		
@@ -68,7 +75,7 @@ public class bgGUI extends JFrame {
 	}
 	
 	public void setUpFrame() {
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		
 		this.setTitle(p.getSettings().getLang().getText(7) + " | TamoTokens: " + p.getMoney());
 		this.setSize(1280, 749);
@@ -89,7 +96,7 @@ public class bgGUI extends JFrame {
 		mainPanel = new JPanel();
 		mainPanel.setBackground(p.getColor());
 		returnToFocus = new JButton(p.getSettings().getLang().getText(23));
-		shopImage = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("shop.png")));
+		shopImage = new JLabel(IconCache.get("shop.png"));
 		
 		//Change background Panel
 		changeColorPanel = new JPanel();
@@ -100,13 +107,13 @@ public class bgGUI extends JFrame {
 		changeColorSouth.setBackground(p.getColor());
 
 		localBackgroundLabel = new JLabel("Change Background Color (500 TamoTokens)");
-		redButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-default.png")));
-		blueButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-blue.png")));
-		greenButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-green.png")));
-		yellowButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-yellow.png")));
-		purpleButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-purple.png")));
-		orangeButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-orange.png")));
-		greyButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("color-grey.png")));
+		redButton = new JButton(IconCache.get("color-default.png"));
+		blueButton = new JButton(IconCache.get("color-blue.png"));
+		greenButton = new JButton(IconCache.get("color-green.png"));
+		yellowButton = new JButton(IconCache.get("color-yellow.png"));
+		purpleButton = new JButton(IconCache.get("color-purple.png"));
+		orangeButton = new JButton(IconCache.get("color-orange.png"));
+		greyButton = new JButton(IconCache.get("color-grey.png"));
 		
 		
 		//center panel
@@ -124,11 +131,11 @@ public class bgGUI extends JFrame {
 		bg5Panel = new JPanel();
 		bg5Panel.setBackground(p.getColor());
 		
-		bg1 = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg.png")));
-		bg2 = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg2.png")));
-		bg3 = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg3.png")));
-		bg4 = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg4.png")));
-		bg5 = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("bg5.png")));
+		bg1 = new JLabel(IconCache.get("bg.png"));
+		bg2 = new JLabel(IconCache.get("bg2.png"));
+		bg3 = new JLabel(IconCache.get("bg3.png"));
+		bg4 = new JLabel(IconCache.get("bg4.png"));
+		bg5 = new JLabel(IconCache.get("bg5.png"));
 		
 		bg1button = new JButton(p.getSettings().getLang().getText(28) + " 1000 Tokens");
 		bg2button = new JButton(p.getSettings().getLang().getText(28) + " 1000 Tokens");
@@ -144,8 +151,7 @@ public class bgGUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				GUI Focus = new GUI(p,file);
-				hideWindow();
+				backToFocus(false);
 				
 			}
 			
@@ -164,11 +170,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(4,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -187,11 +192,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(4,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -210,11 +214,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(4,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -233,11 +236,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(4,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -256,11 +258,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(4,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -323,6 +324,19 @@ public class bgGUI extends JFrame {
 		
 	}
 	
+	/*
+	 * Goes back to the main window, which already follows the profile's changes
+	 * purchased: something was bought, the purchase is saved
+	 */
+	public void backToFocus(boolean purchased) {
+		if(focus == null)
+			focus = new GUI(p, file);
+		else if(purchased)
+			focus.purchased();
+		focus.showWindow();
+		hideWindow();
+	}
+	
 	public void hideWindow() {
 		this.setVisible(false);
 		this.dispose();
@@ -341,11 +355,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -365,11 +378,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -388,11 +400,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -411,11 +422,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -434,11 +444,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -457,11 +466,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -480,11 +488,10 @@ public class bgGUI extends JFrame {
 						
 						p.getAhm().setIndicator(3,1);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -28,10 +28,16 @@ public class debugGUI extends JFrame {
 	private Profile p;
 	private File file;
 	private Encryption encryption;
+	private GUI focus;
 	
 	public debugGUI(Profile profile, File file) {
+		this(profile, file, null);
+	}
+	
+	public debugGUI(Profile profile, File file, GUI focus) {
 		this.p = profile;
 		this.file = file;
+		this.focus = focus;
 		
 		setUpFrame();
 		
@@ -86,7 +92,12 @@ public class debugGUI extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				System.out.println("yes");
 				updateProfileFromFields();
-				GUI gui = new GUI(p, file);
+				if(focus == null) {
+					focus = new GUI(p, file);
+				} else {
+					focus.saveProfile();
+					focus.showWindow();
+				}
 				hideWindow();
 			}
 			
@@ -10,6 +10,7 @@ import java.awt.event.ActionListener;
 import java.io.File;
 
 import javax.swing.*;
+import guicomponents.IconCache;
 
 public class foodGUI extends JFrame {
 	
@@ -19,6 +20,7 @@ public class foodGUI extends JFrame {
 	 */
 	private Profile p;
 	private File file;
+	private GUI focus;	//the main window, hidden while the shop is open
 	private GridBagConstraints gbc = new GridBagConstraints();
 	
 	//Left Panel Components
@@ -65,8 +67,13 @@ public class foodGUI extends JFrame {
 	}
 	
 	public foodGUI(Profile profile, File profileFile) {
+		this(profile, profileFile, null);
+	}
+	
+	public foodGUI(Profile profile, File profileFile, GUI focus) {
 		this.p = profile;
 		this.file = profileFile;
+		this.focus = focus;
 		
 		setUpFrame();
 		
@@ -85,7 +92,7 @@ public class foodGUI extends JFrame {
 	 */
 	
 	public void setUpFrame() {
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		
 		this.setTitle(p.getSettings().getLang().getText(6) + " | Tamo Tokens: " + p.getMoney());
 		this.setSize(720, 299);
@@ -124,17 +131,17 @@ public class foodGUI extends JFrame {
 		food3Panel = new JPanel();
 		food3Panel.setBackground(p.getColor());
 		
-		shopImageLabel = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("shop.png")));
+		shopImageLabel = new JLabel(IconCache.get("shop.png"));
 		tutorialLabel = new JLabel("Buy food for your Tamo!\nUpon purchase, Tamo will eat food.");
 		
-		food1InfoLabel = new JLabel("100 TamoTokens, 1 " + p.getSettings().getLang().getText(22));
-		food1BuyButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("food-onigiri.png")));
+		food1InfoLabel = new JLabel(foodInfo(0));
+		food1BuyButton = new JButton(IconCache.get("food-onigiri.png"));
 
-		food2InfoLabel = new JLabel("200 TamoTokens, 3 " + p.getSettings().getLang().getText(22));
-		food2BuyButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("food-plate.png")));
+		food2InfoLabel = new JLabel(foodInfo(1));
+		food2BuyButton = new JButton(IconCache.get("food-plate.png"));
 		
-		food3InfoLabel = new JLabel("800 TamoTokens, 10 " + p.getSettings().getLang().getText(22));
-		food3BuyButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("food-cheesecake.png")));
+		food3InfoLabel = new JLabel(foodInfo(2));
+		food3BuyButton = new JButton(IconCache.get("food-cheesecake.png"));
 		
 		
 		/*
@@ -145,17 +152,15 @@ public class foodGUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if(p.getMoney() - 100 >= 0) {
-					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), p.getSettings().getLang().getText(28) + " 100 " + p.getSettings().getLang().getText(29),
+				if(TamoEconomy.canBuy(p, 0)) {
+					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), purchaseTitle(0),
 							JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-						p.getTamo().setHunger(p.getTamo().getHunger() + 1);
-						p.setMoney(p.getMoney() - 100);
+						TamoEconomy.feed(p, 0);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -166,22 +171,15 @@ public class foodGUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if(p.getMoney() - 200 >= 0) {
-					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), p.getSettings().getLang().getText(28) + " 200 " + p.getSettings().getLang().getText(29),
+				if(TamoEconomy.canBuy(p, 1)) {
+					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), purchaseTitle(1),
 							JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-						if(p.getTamo().getHunger() > 7) {
-							p.getTamo().setHunger(10);
-						} else {
-							p.getTamo().setHunger(p.getTamo().getHunger() + 3);
-						}
+						TamoEconomy.feed(p, 1);
 						
-						p.setMoney(p.getMoney() - 200);
-						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -192,17 +190,15 @@ public class foodGUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				if(p.getMoney() - 800 >= 0) {
-					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), p.getSettings().getLang().getText(28) + " 800 " + p.getSettings().getLang().getText(29),
+				if(TamoEconomy.canBuy(p, 2)) {
+					if(JOptionPane.showConfirmDialog(null, p.getSettings().getLang().getText(39), purchaseTitle(2),
 							JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-						p.getTamo().setHunger(10);
-						p.setMoney(p.getMoney() - 800);
+						TamoEconomy.feed(p, 2);
 						
-						GUI Focus = new GUI(p,file);
-						hideWindow();
+						backToFocus(true);
 					}
 				} else {
-					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(null, p.getSettings().getLang().getText(25), p.getSettings().getLang().getText(24), JOptionPane.INFORMATION_MESSAGE, IconCache.get("info.png"));
 				}
 				
 			}
@@ -214,8 +210,7 @@ public class foodGUI extends JFrame {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				GUI Focus = new GUI(p,file);
-				hideWindow();
+				backToFocus(false);
 				
 			}
 			
@@ -330,6 +325,31 @@ public class foodGUI extends JFrame {
 
 	}
 	
+	/*
+	 * Price and hunger of the food as shown in the shop, see TamoEconomy
+	 */
+	private String foodInfo(int food) {
+		return TamoEconomy.FOOD_PRICES[food] + " " + p.getSettings().getLang().getText(29) + ", "
+				+ TamoEconomy.FOOD_HUNGER[food] + " " + p.getSettings().getLang().getText(22);
+	}
+	
+	private String purchaseTitle(int food) {
+		return p.getSettings().getLang().getText(28) + " " + TamoEconomy.FOOD_PRICES[food] + " " + p.getSettings().getLang().getText(29);
+	}
+	
+	/*
+	 * Goes back to the main window, which already follows the profile's changes
+	 * purchased: something was bought, the purchase is saved
+	 */
+	public void backToFocus(boolean purchased) {
+		if(focus == null)
+			focus = new GUI(p, file);
+		else if(purchased)
+			focus.purchased();
+		focus.showWindow();
+		hideWindow();
+	}
+	
 	/*
 	 * Method hides the main windows and disposes it
 	 */
@@ -0,0 +1,156 @@
+package guicomponents;
+
+import java.awt.image.BufferedImage;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import javax.imageio.ImageIO;
+
+/**
+ * @description Decodes the image assets in the background at startup
+ *
+ * @purpose Every window used to decode its images on the EDT when it was opened. The preloader is started
+ * before the welcome window and decodes every asset in parallel on a small worker pool while the user
+ * is still logging in, so opening the main GUI and the shops needs no I/O.
+ *
+ * The small, often swapped icons (happiness and hunger bars, gui colors, menu icons) are packed into a
+ * SpriteAtlas instead of being cached one by one, the Tamo sprites are decoded into SpriteFrames and
+ * everything else is decoded into the IconCache. A window that asks for an image that is still being
+ * decoded simply waits for that decode (see IconCache.get).
+ */
+
+public class AssetPreloader {
+
+	/*
+	 * Every image asset, the atlas images first
+	 */
+	public static final List<String> ATLAS_ASSETS = new ArrayList<String>();
+	public static final List<String> ASSETS = new ArrayList<String>();
+
+	static {
+		for(int i = 1; i <= 10; i++)
+			ATLAS_ASSETS.add("happy" + i + ".png");
+		for(int i = 0; i <= 10; i++)
+			ATLAS_ASSETS.add("hungry" + i + ".png");
+		for(String color : new String[] {"default", "blue", "green", "yellow", "purple", "orange", "grey"})
+			ATLAS_ASSETS.add("color-" + color + ".png");
+		for(String menu : new String[] {"stats", "options", "ahm", "inventory"})
+			ATLAS_ASSETS.add("menu-" + menu + ".png");
+
+		//Welcome window first, it is the one shown while the others load
+		String[] others = {
+			"ico.png", "wel-welcome.png", "wel-new_button.png", "wel-load_button.png", "wel-about.png", "info.png",
+			"bg.png", "bg2.png", "bg3.png", "bg4.png", "bg5.png", "tamo_token.png", "heart.png", "shop.png",
+			"food-onigiri.png", "food-plate.png", "food-cheesecake.png", "ahm-achieved.png", "ahm-not.png",
+			"about-about.png", "about-twitter.png", "about-github.png", "about-discord.png", "about-narlock.png",
+			"use-profileUpdater.png", "homeScreen_V2.0.png",
+			"tamo0_default.png", "tamo0_default.gif", "tamo0_happy.png", "tamo0_sad.png", "tamo0_hungry.png", "tamo0_focus.png"
+		};
+		for(String name : others)
+			ASSETS.add(name);
+		for(int id = 1; id <= 3; id++) {
+			for(String state : new String[] {"default.gif", "happy.gif", "sad.png", "hungry.png", "focus.png"})
+				ASSETS.add("tamo" + id + "_" + state);
+		}
+		ASSETS.addAll(ATLAS_ASSETS);
+	}
+
+	private static CompletableFuture<Void> preload;
+
+	/*
+	 * Starts decoding every asset, returns a future that completes once all of them are loaded
+	 * Calling it again returns the same future.
+	 */
+	public static synchronized CompletableFuture<Void> start() {
+		if(preload != null)
+			return preload;
+
+		int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		final ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "TamoStudy-assets-" + count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+
+		List<CompletableFuture<?>> tasks = new ArrayList<CompletableFuture<?>>();
+		for(final String name : ASSETS) {
+			if(ATLAS_ASSETS.contains(name))
+				continue;
+			tasks.add(CompletableFuture.runAsync(new Runnable() {
+				@Override
+				public void run() {
+					//The Tamo is drawn by the TamoSprite from its own pre-decoded frames
+					if(name.startsWith("tamo") && !name.startsWith("tamo_"))
+						SpriteFrames.get(name);
+					else
+						IconCache.get(name);
+				}
+			}, pool));
+		}
+
+		//The atlas images are decoded in parallel too, and packed once all of them are done
+		final Map<String, CompletableFuture<BufferedImage>> atlasImages = new LinkedHashMap<String, CompletableFuture<BufferedImage>>();
+		for(final String name : ATLAS_ASSETS) {
+			atlasImages.put(name, CompletableFuture.supplyAsync(new Supplier<BufferedImage>() {
+				@Override
+				public BufferedImage get() {
+					return read(name);
+				}
+			}, pool));
+		}
+		tasks.add(CompletableFuture.allOf(atlasImages.values().toArray(new CompletableFuture<?>[0])).thenRun(new Runnable() {
+			@Override
+			public void run() {
+				Map<String, BufferedImage> images = new LinkedHashMap<String, BufferedImage>();
+				for(Map.Entry<String, CompletableFuture<BufferedImage>> image : atlasImages.entrySet()) {
+					if(image.getValue().join() != null)
+						images.put(image.getKey(), image.getValue().join());
+				}
+				IconCache.setAtlas(new SpriteAtlas(images));
+			}
+		}));
+
+		preload = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).whenComplete(new BiConsumer<Void, Throwable>() {
+			@Override
+			public void accept(Void result, Throwable error) {
+				pool.shutdown();
+				if(error != null)
+					System.out.println("Preloading images failed due to exception." + error);
+			}
+		});
+		return preload;
+	}
+
+	public static synchronized boolean isDone() {
+		return preload != null && preload.isDone();
+	}
+
+	private static BufferedImage read(String name) {
+		try {
+			URL resource = AssetPreloader.class.getClassLoader().getResource(name);
+			if(resource == null) {
+				System.out.println("Image " + name + " was not found");
+				return null;
+			}
+			return ImageIO.read(resource);
+		} catch (Exception e) {
+			System.out.println("Loading image " + name + " failed due to exception." + e);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package guicomponents;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.SwingUtilities;
+
+/**
+ * @description Collects property changes and updates the widgets once per EDT frame
+ *
+ * @purpose The main window used to recompute every label, icon and timer control after any change.
+ * Now every widget subscribes an update to the properties it shows (e.g. "money" updates the money
+ * label). The batcher listens to the model; the changes of one frame (a purchase changes money,
+ * hunger and an achievement at once) are collected and every affected update runs once, on the EDT,
+ * after the current event is handled. An update that several changed properties share runs only once.
+ *
+ * Changes may come from any thread, the updates always run on the EDT.
+ */
+
+public class ChangeBatcher implements PropertyChangeListener {
+
+	private final Map<String, List<Runnable>> updates = new HashMap<String, List<Runnable>>();
+	private final Set<String> changed = new LinkedHashSet<String>();
+	private boolean flushScheduled;
+	private long flushes;
+	private long events;
+
+	/*
+	 * Runs the update on the EDT whenever one of the properties changed
+	 */
+	public synchronized void subscribe(Runnable update, String... properties) {
+		for(String property : properties) {
+			List<Runnable> list = updates.get(property);
+			if(list == null) {
+				list = new ArrayList<Runnable>();
+				updates.put(property, list);
+			}
+			list.add(update);
+		}
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent evt) {
+		synchronized(this) {
+			events++;
+			changed.add(evt.getPropertyName());
+			if(flushScheduled)
+				return;
+			flushScheduled = true;
+		}
+
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	/*
+	 * Runs every update once, e.g. to fill the widgets when the window is built
+	 */
+	public void updateAll() {
+		Set<Runnable> all = new LinkedHashSet<Runnable>();
+		synchronized(this) {
+			for(List<Runnable> list : updates.values())
+				all.addAll(list);
+		}
+		for(Runnable update : all)
+			update.run();
+	}
+
+	/*
+	 * Runs the updates of the properties that changed since the last flush
+	 */
+	private void flush() {
+		Set<Runnable> due = new LinkedHashSet<Runnable>();
+		synchronized(this) {
+			for(String property : changed) {
+				List<Runnable> list = updates.get(property);
+				if(list != null)
+					due.addAll(list);
+			}
+			changed.clear();
+			flushScheduled = false;
+			flushes++;
+		}
+		for(Runnable update : due)
+			update.run();
+	}
+
+	/*
+	 * Number of property changes received and number of frames they were batched into
+	 */
+	public synchronized long getEventCount() {
+		return events;
+	}
+
+	public synchronized long getFlushCount() {
+		return flushes;
+	}
+}
@@ -0,0 +1,194 @@
+package guicomponents;
+
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.ImageIcon;
+
+/**
+ * @description Shared cache of the image assets
+ *
+ * @purpose Every window (and every update of the Tamo's image, happiness and hunger) created a
+ * new ImageIcon from the resource, which decodes the PNG/GIF again each time. All images are now
+ * loaded through this cache, keyed by resource name, so each asset is decoded once per run.
+ *
+ * The cache is bounded: it holds at most MAX_PIXELS pixels of decoded images and drops the least
+ * recently used ones first. Entries are soft references, so the JVM can also clear them when memory
+ * runs low; a cleared entry is simply decoded again on its next use. Hits and misses are counted
+ * (see the debug window).
+ *
+ * An image that is being decoded (e.g. by the AssetPreloader) is not decoded a second time: other
+ * threads asking for it wait for that decode. Small icons can be served from a SpriteAtlas instead.
+ */
+
+public class IconCache {
+
+	//About 32 MB of decoded ARGB images
+	private static final long MAX_PIXELS = 8 * 1024 * 1024;
+
+	private static final LinkedHashMap<String, Entry> icons = new LinkedHashMap<String, Entry>(128, 0.75f, true);
+	private static long cachedPixels;
+
+	//Images being decoded right now, by resource name
+	private static final Map<String, FutureTask<ImageIcon>> loading = new HashMap<String, FutureTask<ImageIcon>>();
+
+	private static volatile SpriteAtlas atlas;
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	private static class Entry {
+		final SoftReference<ImageIcon> icon;
+		final long pixels;
+
+		Entry(ImageIcon icon) {
+			this.icon = new SoftReference<ImageIcon>(icon);
+			this.pixels = Math.max(1, (long) icon.getIconWidth() * icon.getIconHeight());
+		}
+	}
+
+	/*
+	 * Returns the icon of the resource (e.g. "info.png"), decoding it only if it is not cached
+	 */
+	public static ImageIcon get(final String name) {
+		SpriteAtlas sprites = atlas;
+		if(sprites != null && sprites.contains(name)) {
+			hits.incrementAndGet();
+			return sprites.getIcon(name);
+		}
+
+		FutureTask<ImageIcon> task;
+		boolean decodeHere = false;
+		synchronized(icons) {
+			Entry entry = icons.get(name);
+			ImageIcon icon = entry != null ? entry.icon.get() : null;
+			if(icon != null) {
+				hits.incrementAndGet();
+				return icon;
+			}
+			if(entry != null)
+				remove(name);
+
+			task = loading.get(name);
+			if(task == null) {
+				task = new FutureTask<ImageIcon>(new Callable<ImageIcon>() {
+					@Override
+					public ImageIcon call() {
+						return decode(name);
+					}
+				});
+				loading.put(name, task);
+				decodeHere = true;
+			}
+		}
+
+		//Decoding happens outside the lock, so a slow image doesn't block the other windows
+		if(decodeHere) {
+			misses.incrementAndGet();
+			task.run();
+		}
+
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return decode(name);
+		} catch (ExecutionException e) {
+			System.out.println("Loading image " + name + " failed due to exception." + e);
+			return new ImageIcon();
+		}
+	}
+
+	private static ImageIcon decode(String name) {
+		try {
+			URL resource = IconCache.class.getClassLoader().getResource(name);
+			if(resource == null) {
+				System.out.println("Image " + name + " was not found");
+				return new ImageIcon();
+			}
+			ImageIcon icon = new ImageIcon(resource);
+			put(name, icon);
+			return icon;
+		} finally {
+			synchronized(icons) {
+				loading.remove(name);
+			}
+		}
+	}
+
+	/*
+	 * Serves the icons packed into the atlas from it (see AssetPreloader)
+	 */
+	public static void setAtlas(SpriteAtlas spriteAtlas) {
+		atlas = spriteAtlas;
+	}
+
+	public static SpriteAtlas getAtlas() {
+		return atlas;
+	}
+
+	/*
+	 * Adds an icon that was decoded somewhere else (e.g. by the AssetPreloader)
+	 */
+	public static void put(String name, ImageIcon icon) {
+		synchronized(icons) {
+			remove(name);
+			Entry entry = new Entry(icon);
+			icons.put(name, entry);
+			cachedPixels += entry.pixels;
+			evict();
+		}
+	}
+
+	public static boolean contains(String name) {
+		synchronized(icons) {
+			Entry entry = icons.get(name);
+			if(entry != null && entry.icon.get() != null)
+				return true;
+		}
+		SpriteAtlas sprites = atlas;
+		return sprites != null && sprites.contains(name);
+	}
+
+	public static long getHits() {
+		return hits.get();
+	}
+
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	public static int size() {
+		synchronized(icons) {
+			return icons.size();
+		}
+	}
+
+	public static String getStats() {
+		return "Icon cache: " + size() + " images, " + getHits() + " hits, " + getMisses() + " misses";
+	}
+
+	private static void remove(String name) {
+		Entry old = icons.remove(name);
+		if(old != null)
+			cachedPixels -= old.pixels;
+	}
+
+	/*
+	 * Drops the least recently used icons until the cache fits MAX_PIXELS (the newest icon always stays)
+	 */
+	private static void evict() {
+		Iterator<Map.Entry<String, Entry>> it = icons.entrySet().iterator();
+		while(cachedPixels > MAX_PIXELS && icons.size() > 1 && it.hasNext()) {
+			cachedPixels -= it.next().getValue().pixels;
+			it.remove();
+		}
+	}
+}
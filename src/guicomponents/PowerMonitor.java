@@ -0,0 +1,120 @@
+package guicomponents;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * @description Measures the CPU time the app uses with and without low power mode
+ *
+ * @purpose While the main window is minimized or hidden during a session, the Tamo animation is paused,
+ * the countdown labels are not updated and the timers are polled once per second (low power mode).
+ * This monitor adds up the wall time and the CPU time (of all threads of the app) spent in each mode,
+ * so the debug counter can show how much CPU time low power mode saved: the CPU time the low power
+ * period would have used at the normal rate, minus what it really used.
+ */
+
+public class PowerMonitor {
+
+	private static final int NORMAL = 0;
+	private static final int LOW_POWER = 1;
+
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private boolean lowPower;
+	private long modeStartWall;
+	private long modeStartCpu;
+	private final long[] wallNanos = new long[2];
+	private final long[] cpuNanos = new long[2];
+	private long skippedUpdates;
+
+	public PowerMonitor() {
+		modeStartWall = System.nanoTime();
+		modeStartCpu = processCpuNanos();
+	}
+
+	public synchronized void setLowPower(boolean lowPower) {
+		if(this.lowPower == lowPower)
+			return;
+		account();
+		this.lowPower = lowPower;
+	}
+
+	public synchronized boolean isLowPower() {
+		return lowPower;
+	}
+
+	//A label update that low power mode left out
+	public synchronized void countSkippedUpdate() {
+		skippedUpdates++;
+	}
+
+	public synchronized long getSkippedUpdates() {
+		return skippedUpdates;
+	}
+
+	/*
+	 * CPU use of the mode in percent of one core, -1 when it can't be measured
+	 */
+	public synchronized double getCpuPercent(boolean inLowPower) {
+		account();
+		int mode = inLowPower ? LOW_POWER : NORMAL;
+		if(wallNanos[mode] == 0 || cpuNanos[mode] < 0)
+			return -1;
+		return 100.0 * cpuNanos[mode] / wallNanos[mode];
+	}
+
+	/*
+	 * CPU time low power mode saved so far
+	 */
+	public synchronized long getSavedCpuNanos() {
+		account();
+		if(wallNanos[NORMAL] == 0 || cpuNanos[NORMAL] < 0 || cpuNanos[LOW_POWER] < 0)
+			return 0;
+		double normalRate = (double) cpuNanos[NORMAL] / wallNanos[NORMAL];
+		return Math.max(0, (long) (normalRate * wallNanos[LOW_POWER]) - cpuNanos[LOW_POWER]);
+	}
+
+	public String getStats() {
+		return String.format("CPU %.1f%% (low power %.1f%%), saved %.2f s, %d updates skipped",
+				Math.max(0, getCpuPercent(false)), Math.max(0, getCpuPercent(true)), getSavedCpuNanos() / 1e9, getSkippedUpdates());
+	}
+
+	/*
+	 * Adds the time since the last call to the current mode
+	 */
+	private void account() {
+		long wall = System.nanoTime();
+		long cpu = processCpuNanos();
+		int mode = lowPower ? LOW_POWER : NORMAL;
+		wallNanos[mode] += wall - modeStartWall;
+		if(cpu < 0 || modeStartCpu < 0)
+			cpuNanos[mode] = -1;
+		else if(cpuNanos[mode] >= 0)
+			cpuNanos[mode] += Math.max(0, cpu - modeStartCpu);
+		modeStartWall = wall;
+		modeStartCpu = cpu;
+	}
+
+	/*
+	 * CPU time of every live thread, -1 when the JVM can't measure it
+	 * (threads that ended are not counted, the app's threads live as long as it does)
+	 */
+	private long processCpuNanos() {
+		if(!threads.isThreadCpuTimeSupported())
+			return -1;
+		try {
+			if(!threads.isThreadCpuTimeEnabled())
+				threads.setThreadCpuTimeEnabled(true);
+		} catch (UnsupportedOperationException e) {
+			return -1;
+		}
+
+		long total = 0;
+		for(long id : threads.getAllThreadIds()) {
+			long time = threads.getThreadCpuTime(id);
+			if(time > 0)
+				total += time;
+		}
+		return total;
+	}
+}
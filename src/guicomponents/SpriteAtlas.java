@@ -0,0 +1,97 @@
+package guicomponents;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.ImageIcon;
+
+/**
+ * @description Many small images packed into one image
+ *
+ * @purpose The happiness and hunger bars, the gui color buttons and the menu icons are small images that
+ * are swapped often. They are drawn into a single atlas image, and every icon is a sub-image of it:
+ * a sub-image shares the atlas' pixels, so all of them are one allocation that is loaded once and
+ * never evicted from the IconCache.
+ *
+ * The images are packed in shelves (rows), tallest first, ATLAS_WIDTH pixels wide.
+ */
+
+public class SpriteAtlas {
+
+	public static final int ATLAS_WIDTH = 512;
+
+	private final BufferedImage image;
+	private final Map<String, Rectangle> regions = new HashMap<String, Rectangle>();
+	private final Map<String, ImageIcon> icons = new HashMap<String, ImageIcon>();
+
+	/*
+	 * Packs the images (by resource name) into a new atlas
+	 */
+	public SpriteAtlas(final Map<String, BufferedImage> images) {
+		List<String> names = new ArrayList<String>(images.keySet());
+		Collections.sort(names, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				int byHeight = Integer.compare(images.get(b).getHeight(), images.get(a).getHeight());
+				return byHeight != 0 ? byHeight : a.compareTo(b);
+			}
+		});
+
+		//Places every image on the current shelf, or starts a new shelf below it
+		int x = 0, y = 0, shelfHeight = 0, width = 1;
+		for(String name : names) {
+			BufferedImage img = images.get(name);
+			if(x > 0 && x + img.getWidth() > ATLAS_WIDTH) {
+				x = 0;
+				y += shelfHeight;
+				shelfHeight = 0;
+			}
+			regions.put(name, new Rectangle(x, y, img.getWidth(), img.getHeight()));
+			x += img.getWidth();
+			width = Math.max(width, x);
+			shelfHeight = Math.max(shelfHeight, img.getHeight());
+		}
+
+		image = new BufferedImage(width, Math.max(1, y + shelfHeight), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		for(String name : names) {
+			Rectangle r = regions.get(name);
+			g.drawImage(images.get(name), r.x, r.y, null);
+		}
+		g.dispose();
+
+		for(String name : names) {
+			Rectangle r = regions.get(name);
+			icons.put(name, new ImageIcon(image.getSubimage(r.x, r.y, r.width, r.height)));
+		}
+	}
+
+	public boolean contains(String name) {
+		return icons.containsKey(name);
+	}
+
+	/*
+	 * Returns the icon of the image, null if it is not in the atlas
+	 */
+	public ImageIcon getIcon(String name) {
+		return icons.get(name);
+	}
+
+	public Rectangle getRegion(String name) {
+		return regions.get(name);
+	}
+
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	public int size() {
+		return icons.size();
+	}
+}
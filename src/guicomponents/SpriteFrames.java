@@ -0,0 +1,299 @@
+package guicomponents;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * @description Decoded frames of a Tamo sprite (animated GIF or still image)
+ *
+ * @purpose Swing shows an animated GIF by decoding its frames again every time they are shown and by
+ * repainting the whole label. Here every frame is decoded and composed once (GIF frames are often only
+ * a part of the picture, drawn over the previous ones) into an image compatible with the screen, so
+ * drawing a frame is a plain copy.
+ *
+ * For every frame the rectangle that differs from the previous frame is also kept, the TamoSprite only
+ * repaints that rectangle when the frame changes. The frames of every sprite are cached by resource name.
+ */
+
+public class SpriteFrames {
+
+	//GIF delays under 20 ms are shown as 100 ms, like browsers do
+	private static final int MIN_DELAY_MILLIS = 20;
+	private static final int DEFAULT_DELAY_MILLIS = 100;
+
+	private static final Map<String, SpriteFrames> cache = new HashMap<String, SpriteFrames>();
+
+	private final BufferedImage[] frames;
+	private final long[] frameStartNanos;	//start of each frame within one loop
+	private final Rectangle[] dirty;		//part of frame i that differs from frame i-1 (frame 0: from the last frame)
+	private final long loopNanos;
+
+	private SpriteFrames(List<BufferedImage> images, List<Integer> delays) {
+		int count = images.size();
+		this.frames = new BufferedImage[count];
+		this.frameStartNanos = new long[count];
+		this.dirty = new Rectangle[count];
+
+		long start = 0;
+		for(int i = 0; i < count; i++) {
+			frames[i] = toCompatible(images.get(i));
+			frameStartNanos[i] = start;
+			start += delays.get(i) * 1000000L;
+		}
+		this.loopNanos = start;
+
+		for(int i = 0; i < count; i++) {
+			dirty[i] = difference(images.get((i + count - 1) % count), images.get(i));
+		}
+	}
+
+	/*
+	 * Returns the frames of the resource (e.g. "tamo1_happy.gif"), decoding them only the first time
+	 */
+	public static SpriteFrames get(String name) {
+		synchronized(cache) {
+			SpriteFrames frames = cache.get(name);
+			if(frames != null)
+				return frames;
+		}
+
+		SpriteFrames frames;
+		try {
+			frames = decode(name);
+		} catch (IOException e) {
+			System.out.println("Loading sprite " + name + " failed due to exception." + e);
+			frames = still(IconCache.get(name).getImage());
+		}
+
+		synchronized(cache) {
+			SpriteFrames cached = cache.get(name);
+			if(cached != null)
+				return cached;
+			cache.put(name, frames);
+			return frames;
+		}
+	}
+
+	public int getFrameCount() {
+		return frames.length;
+	}
+
+	public BufferedImage getFrame(int frame) {
+		return frames[frame];
+	}
+
+	public Rectangle getDirty(int frame) {
+		return dirty[frame];
+	}
+
+	public int getWidth() {
+		return frames[0].getWidth();
+	}
+
+	public int getHeight() {
+		return frames[0].getHeight();
+	}
+
+	public boolean isAnimated() {
+		return frames.length > 1 && loopNanos > 0;
+	}
+
+	/*
+	 * Frame shown at the time (nanoseconds since the animation started), the animation loops forever
+	 */
+	public int frameAt(long nanos) {
+		if(!isAnimated())
+			return 0;
+		long t = nanos % loopNanos;
+		int lo = 0, hi = frames.length - 1;
+		while(lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if(frameStartNanos[mid] <= t)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		return lo;
+	}
+
+	/*
+	 * Time until the frame after the one shown at the time
+	 */
+	public long nanosUntilNextFrame(long nanos) {
+		long t = nanos % loopNanos;
+		int frame = frameAt(nanos);
+		long end = frame + 1 < frames.length ? frameStartNanos[frame + 1] : loopNanos;
+		return end - t;
+	}
+
+	private static SpriteFrames decode(String name) throws IOException {
+		URL resource = SpriteFrames.class.getClassLoader().getResource(name);
+		if(resource == null)
+			throw new IOException("Image " + name + " was not found");
+		if(!name.endsWith(".gif"))
+			return still(ImageIO.read(resource));
+
+		Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+		if(!readers.hasNext())
+			throw new IOException("No GIF reader");
+		ImageReader reader = readers.next();
+
+		try (InputStream stream = resource.openStream(); ImageInputStream in = ImageIO.createImageInputStream(stream)) {
+			reader.setInput(in, false);
+			int count = reader.getNumImages(true);
+
+			//Size of the whole picture, the frames can be smaller
+			int width = 0, height = 0;
+			IIOMetadata streamData = reader.getStreamMetadata();
+			if(streamData != null) {
+				Node screen = child(streamData.getAsTree("javax_imageio_gif_stream_1.0"), "LogicalScreenDescriptor");
+				width = attribute(screen, "logicalScreenWidth", 0);
+				height = attribute(screen, "logicalScreenHeight", 0);
+			}
+			if(width <= 0 || height <= 0) {
+				width = reader.getWidth(0);
+				height = reader.getHeight(0);
+			}
+
+			BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			List<BufferedImage> images = new ArrayList<BufferedImage>();
+			List<Integer> delays = new ArrayList<Integer>();
+
+			for(int i = 0; i < count; i++) {
+				BufferedImage part = reader.read(i);
+				Node data = reader.getImageMetadata(i).getAsTree("javax_imageio_gif_image_1.0");
+				Node descriptor = child(data, "ImageDescriptor");
+				Node control = child(data, "GraphicControlExtension");
+				int x = attribute(descriptor, "imageLeftPosition", 0);
+				int y = attribute(descriptor, "imageTopPosition", 0);
+				int delay = attribute(control, "delayTime", 0) * 10;
+				String disposal = control != null ? control.getAttributes().getNamedItem("disposalMethod").getNodeValue() : "none";
+
+				BufferedImage previous = disposal.equals("restoreToPrevious") ? copy(canvas) : null;
+
+				Graphics2D g = canvas.createGraphics();
+				g.drawImage(part, x, y, null);
+				g.dispose();
+
+				images.add(copy(canvas));
+				delays.add(delay < MIN_DELAY_MILLIS ? DEFAULT_DELAY_MILLIS : delay);
+
+				//Prepares the canvas for the next frame
+				if(disposal.equals("restoreToBackgroundColor")) {
+					Graphics2D clear = canvas.createGraphics();
+					clear.setComposite(AlphaComposite.Clear);
+					clear.fillRect(x, y, part.getWidth(), part.getHeight());
+					clear.dispose();
+				} else if(previous != null) {
+					canvas = previous;
+				}
+			}
+			return new SpriteFrames(images, delays);
+		} finally {
+			reader.dispose();
+		}
+	}
+
+	private static SpriteFrames still(Image image) {
+		//A missing image is shown as one transparent pixel
+		int width = image != null ? image.getWidth(null) : 1;
+		int height = image != null ? image.getHeight(null) : 1;
+		BufferedImage frame = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+		if(image != null) {
+			Graphics2D g = frame.createGraphics();
+			g.drawImage(image, 0, 0, null);
+			g.dispose();
+		}
+
+		List<BufferedImage> images = new ArrayList<BufferedImage>();
+		images.add(frame);
+		List<Integer> delays = new ArrayList<Integer>();
+		delays.add(0);
+		return new SpriteFrames(images, delays);
+	}
+
+	/*
+	 * Smallest rectangle containing every pixel that differs, null if the images are the same
+	 */
+	private static Rectangle difference(BufferedImage a, BufferedImage b) {
+		int w = Math.min(a.getWidth(), b.getWidth()), h = Math.min(a.getHeight(), b.getHeight());
+		int[] rowA = new int[w], rowB = new int[w];
+		int minX = w, minY = h, maxX = -1, maxY = -1;
+
+		for(int y = 0; y < h; y++) {
+			a.getRGB(0, y, w, 1, rowA, 0, w);
+			b.getRGB(0, y, w, 1, rowB, 0, w);
+			for(int x = 0; x < w; x++) {
+				if(rowA[x] != rowB[x]) {
+					minX = Math.min(minX, x);
+					maxX = Math.max(maxX, x);
+					minY = Math.min(minY, y);
+					maxY = y;
+				}
+			}
+		}
+		if(maxX < 0)
+			return null;
+		return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+	}
+
+	/*
+	 * Copies the image into the pixel format of the screen, so drawing it needs no conversion
+	 */
+	private static BufferedImage toCompatible(BufferedImage image) {
+		BufferedImage compatible;
+		if(GraphicsEnvironment.isHeadless()) {
+			compatible = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+		} else {
+			compatible = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+					.createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+		}
+		Graphics2D g = compatible.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return compatible;
+	}
+
+	private static BufferedImage copy(BufferedImage image) {
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = copy.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return copy;
+	}
+
+	private static Node child(Node node, String name) {
+		for(Node c = node.getFirstChild(); c != null; c = c.getNextSibling()) {
+			if(c.getNodeName().equals(name))
+				return c;
+		}
+		return null;
+	}
+
+	private static int attribute(Node node, String name, int defaultValue) {
+		if(node == null)
+			return defaultValue;
+		NamedNodeMap attributes = node.getAttributes();
+		Node value = attributes != null ? attributes.getNamedItem(name) : null;
+		return value != null ? Integer.parseInt(value.getNodeValue()) : defaultValue;
+	}
+}
@@ -0,0 +1,163 @@
+package guicomponents;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * @description Component that shows the Tamo, animated or still
+ *
+ * @purpose Replaces the JLabel whose icon was switched between animated GIFs and PNGs. The frames come
+ * pre-decoded from SpriteFrames, and the component paints them itself:
+ *
+ *   - the frame to show is calculated from a monotonic animation clock (System.nanoTime), so a late
+ *     timer skips frames instead of slowing the animation down
+ *   - the timer is single-shot and set to the next frame change, there are no idle wake-ups
+ *   - when the frame changes only the rectangle that differs from the previous frame is repainted
+ *   - the animation stops while the component is not displayable or is paused (see setAnimating)
+ */
+
+public class TamoSprite extends JComponent {
+
+	private static final long serialVersionUID = 1L;
+
+	private SpriteFrames sprite;
+	private String spriteName;
+	private int frame;
+	private long startNanos;
+	private boolean animating = true;
+	private long framesPainted;
+
+	private final Timer animationTimer;
+
+	public TamoSprite() {
+		setOpaque(false);
+		animationTimer = new Timer(0, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				advance();
+			}
+		});
+		animationTimer.setRepeats(false);
+	}
+
+	public TamoSprite(String name) {
+		this();
+		setSprite(name);
+	}
+
+	/*
+	 * Shows the sprite of the resource (e.g. "tamo2_default.gif"), nothing happens if it is already shown
+	 */
+	public void setSprite(String name) {
+		if(name.equals(spriteName))
+			return;
+
+		SpriteFrames old = sprite;
+		spriteName = name;
+		sprite = SpriteFrames.get(name);
+		frame = 0;
+		startNanos = System.nanoTime();
+
+		if(old == null || old.getWidth() != sprite.getWidth() || old.getHeight() != sprite.getHeight())
+			revalidate();
+		repaint();
+		schedule();
+	}
+
+	public String getSprite() {
+		return spriteName;
+	}
+
+	/*
+	 * Pauses or resumes the animation, the current frame stays on screen while paused
+	 * On resume the clock continues where the animation would be now.
+	 */
+	public void setAnimating(boolean animating) {
+		if(this.animating == animating)
+			return;
+		this.animating = animating;
+		if(animating)
+			advance();
+		else
+			animationTimer.stop();
+	}
+
+	public boolean isAnimating() {
+		return animating;
+	}
+
+	//Frames painted since the component was created, for the debug counters
+	public long getFramesPainted() {
+		return framesPainted;
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if(sprite == null || isPreferredSizeSet())
+			return super.getPreferredSize();
+		return new Dimension(sprite.getWidth(), sprite.getHeight());
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if(sprite == null)
+			return;
+		g.drawImage(sprite.getFrame(frame), originX(), originY(), null);
+		framesPainted++;
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		advance();
+	}
+
+	@Override
+	public void removeNotify() {
+		animationTimer.stop();
+		super.removeNotify();
+	}
+
+	/*
+	 * Shows the frame of the animation clock and waits for the next one
+	 */
+	private void advance() {
+		if(sprite == null || !sprite.isAnimated())
+			return;
+
+		long now = System.nanoTime() - startNanos;
+		int next = sprite.frameAt(now);
+		if(next != frame) {
+			//One frame later: only what changed, frames skipped: the whole sprite
+			Rectangle dirty = next == (frame + 1) % sprite.getFrameCount() ? sprite.getDirty(next) : new Rectangle(0, 0, sprite.getWidth(), sprite.getHeight());
+			frame = next;
+			if(dirty != null)
+				repaint(originX() + dirty.x, originY() + dirty.y, dirty.width, dirty.height);
+		}
+		schedule();
+	}
+
+	private void schedule() {
+		animationTimer.stop();
+		if(sprite == null || !sprite.isAnimated() || !animating || !isDisplayable())
+			return;
+
+		long wait = sprite.nanosUntilNextFrame(System.nanoTime() - startNanos);
+		animationTimer.setInitialDelay((int) Math.max(1, (wait + 999999) / 1000000));
+		animationTimer.start();
+	}
+
+	//The sprite is centered in the component
+	private int originX() {
+		return (getWidth() - sprite.getWidth()) / 2;
+	}
+
+	private int originY() {
+		return (getHeight() - sprite.getHeight()) / 2;
+	}
+}
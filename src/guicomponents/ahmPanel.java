@@ -28,7 +28,7 @@ public class ahmPanel extends JPanel {
 	public ahmPanel(int id, int achieved, int languageIndicator) {
 		this.achieved = achieved;
 		this.id = id;
-		this.lang = new Language(languageIndicator);
+		this.lang = Language.of(languageIndicator);
 		
 		centerPanel = new JPanel();
 		ahmImage = new JLabel();
@@ -103,9 +103,9 @@ public class ahmPanel extends JPanel {
 	
 	public void createPanel() {
 		if(achieved == 1) {
-			this.ahmImage.setIcon(new ImageIcon(getClass().getClassLoader().getResource("ahm-achieved.png")));
+			this.ahmImage.setIcon(IconCache.get("ahm-achieved.png"));
 		} else {
-			this.ahmImage.setIcon(new ImageIcon(getClass().getClassLoader().getResource("ahm-not.png")));
+			this.ahmImage.setIcon(IconCache.get("ahm-not.png"));
 		}
 		
 		this.add(ahmImage, BorderLayout.WEST);
@@ -1,20 +1,30 @@
 package profile;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 
 /**
  * 
  * @author Anthony Narlock
  * @description Achievements for profile
+ * 
+ * The earned achievements are kept in one bitmask, bit i is set when achievement i is earned.
+ * In the profile file they are stored as a string of 0s and 1s, one character per achievement
+ * (e.g. 10101010000: achievements 0, 2, 4 and 6). Profiles from before the login achievements
+ * have 8 characters, the missing ones are not earned. An event is only fired when a bit actually flips.
  *
  */
 
 public class Achievements {
-	private final int ACHIEVEMENT_COUNT = 8;
+	public static final int ACHIEVEMENT_COUNT = 11;
+	
+	//Indexed property, fired when an achievement is earned (or taken away)
+	public static final String ACHIEVEMENT = "achievement";
+	
+	private final PropertyChangeSupport changes = new PropertyChangeSupport(this);
 	
 	//Title of Achievement
-	private String[] title = 
+	private static final String[] title = 
 		{"The Beginning",
 		"Nothing can stop you!",
 		"Never give up!",
@@ -27,7 +37,7 @@ public class Achievements {
 		"Dedication 2",
 		"Dedicated"}; 
 	//Description of Achievement
-	private String[] desc = 
+	private static final String[] desc = 
 		{"Reach Total focus time of 3 hours",
 		"Reach Total focus time of 1 day",
 		"Reach Total focus time of 7 days",
@@ -40,117 +50,121 @@ public class Achievements {
 		"Log into TamoStudy consecutively for 14 days",
 		"Log into TamoStudy consecutively for 30 days"};
 	
-	//Indicator of Achievement
-	private int[] indicator;
-	private String[] stringIndicator;
-	private String ahmString;
+	private static final long ALL = (1L << ACHIEVEMENT_COUNT) - 1;
+	
+	//Earned achievements
+	private long bits;
 	
 	/*
 	 * New Profile: Achievements will not be filled in
 	 */
 	public Achievements() {
-		this.indicator = new int[ACHIEVEMENT_COUNT];
-		this.stringIndicator = new String[ACHIEVEMENT_COUNT];
-		
-		this.ahmString = "00000000";
-		
-		updateAchievements();
+		this.bits = 0;
 	}
 	
 	/*
-	 * Loaded Profile: Achievements will be updated
+	 * Loaded Profile: Achievements are read from the string of the profile file
 	 */
 	public Achievements(String aline) {
-		this.ahmString = aline;
-		
-		this.indicator = new int[ACHIEVEMENT_COUNT];
-		this.stringIndicator = new String[ACHIEVEMENT_COUNT];
-
 		updateAchievements(aline);
 	}
-
-	public void updateAchievements() {
-		for(int i = 0; i < indicator.length; i++) {
-			this.indicator[i] = 0;
-		}
-		
-		for(int i = 0; i < indicator.length; i++) {
-			this.stringIndicator[i] = "0";
-		}
-		
-	}
 	
+	/*
+	 * Sets the achievements of the string, character i is '1' when achievement i is earned
+	 * Missing characters (older profiles have fewer achievements) are not earned.
+	 */
 	public void updateAchievements(String aline) {
-		/*
-		 * Program will split the String into substring for recognition
-		 * Then will set the achievements according to their values
-		 * 
-		 * Ex: 10101010
-		 * This maps to the profile having achievements 0,3,5, and 7
-		 */
-		
-		for(int i = 0; i < indicator.length; i++) {
-			stringIndicator[i] = ahmString.substring(i,i+1);
-			System.out.println("stringIndicator[" + i + "] = " + stringIndicator[i] );
-		}
-		 
-		for(int i = 0; i < indicator.length; i++) {
-			this.indicator[i] = Integer.parseInt(stringIndicator[i]);
+		long parsed = 0;
+		for(int i = 0; i < ACHIEVEMENT_COUNT && i < aline.length(); i++) {
+			if(aline.charAt(i) == '1')
+				parsed |= 1L << i;
 		}
+		setBits(parsed);
 	}
 	
 	public String getTitle(int index) {
-		return this.title[index];
+		return title[index];
 	}
 	
 	public String getDesc(int index) {
-		return this.desc[index];
+		return desc[index];
 	}
 	
 	public void setAchievementIndicator(int ahm) {
-		this.indicator[ahm] = 1;
-		this.stringIndicator[ahm] = "1";
-		this.ahmString = String.join("", stringIndicator);
-		runDebug();
+		setIndicator(ahm, 1);
 	}
 	
 	public void setIndicator(int index, int value) {
-		this.indicator[index] = value;
-		updateIndicatorString();
+		if(value == 1)
+			earn(index);
+		else
+			setBits(bits & ~(1L << index));
 	}
 	
 	public int getIndicator(int index) {
-		return this.indicator[index];
+		return isEarned(index) ? 1 : 0;
 	}
 	
-	public String getAhmString() {
-		return this.ahmString;
+	public boolean isEarned(int index) {
+		return (bits & (1L << index)) != 0;
 	}
 	
-	public void runDebug() {
-		System.out.println("RUNNING ACHIEVEMENTS DEBUG:"
-				+ "\nIndicator = ");
-		for(int i = 0; i < indicator.length; i++) {
-			System.out.print(this.indicator[i]);
-		}
-		
-		System.out.println("stringIndicator = ");
+	/*
+	 * Earns the achievement, returns true if it was not earned before
+	 */
+	public boolean earn(int index) {
+		if(isEarned(index))
+			return false;
+		bits |= 1L << index;
+		changes.fireIndexedPropertyChange(ACHIEVEMENT, index, 0, 1);
+		return true;
+	}
+	
+	/*
+	 * Achievements as bits, bit i is set when achievement i is earned
+	 */
+	public int getBits() {
+		return (int) bits;
+	}
+	
+	public void setBits(int bits) {
+		setBits(bits & 0xFFFFFFFFL);
+	}
+	
+	private void setBits(long newBits) {
+		newBits &= ALL;
+		long flipped = bits ^ newBits;
+		bits = newBits;
 		
-		for(int i = 0; i < indicator.length; i++) {
-			System.out.print(this.stringIndicator[i]);
+		//Only the bits that flipped fire an event
+		while(flipped != 0) {
+			int i = Long.numberOfTrailingZeros(flipped);
+			flipped &= flipped - 1;
+			changes.fireIndexedPropertyChange(ACHIEVEMENT, i, 1 - getIndicator(i), getIndicator(i));
 		}
-		
-		System.out.println("ahmString = " + ahmString);
 	}
 	
+	public int getEarnedCount() {
+		return Long.bitCount(bits);
+	}
 	
-	public void updateIndicatorString() {
-		System.out.println("DEBUG: AHMSTRING BEFORE: " + ahmString);
-		//Update ahmString
-		this.ahmString = Arrays.stream(indicator).mapToObj(String::valueOf).collect(Collectors.joining(""));
-		
-		System.out.println("DEBUG: AHMSTRING AFTER: " + ahmString);
+	/*
+	 * String that is stored in the profile file
+	 */
+	public String getAhmString() {
+		char[] ahm = new char[ACHIEVEMENT_COUNT];
+		for(int i = 0; i < ACHIEVEMENT_COUNT; i++) {
+			ahm[i] = isEarned(i) ? '1' : '0';
+		}
+		return new String(ahm);
 	}
 	
+	public void addPropertyChangeListener(PropertyChangeListener listener) {
+		changes.addPropertyChangeListener(listener);
+	}
+	
+	public void removePropertyChangeListener(PropertyChangeListener listener) {
+		changes.removePropertyChangeListener(listener);
+	}
 	
 }
@@ -1,5 +1,8 @@
 package profile;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+
 /**
  * 
  * @author Anthony Narlock
@@ -8,6 +11,14 @@ package profile;
  */
 
 public class ProfileSettings {
+	/*
+	 * Names of the properties that fire change events
+	 */
+	public static final String FOCUS_MODE = "focusMode";
+	public static final String LANGUAGE = "language";
+	
+	private final PropertyChangeSupport changes = new PropertyChangeSupport(this);
+	
 	/*
 	 * Attributes of ProfileSettings
 	 * These contain all of the possible settings that the user can update.
@@ -17,7 +28,8 @@ public class ProfileSettings {
 	 * Focus Mode: Which style the timer is set to
 	 * 0: 5 minute interval countdown timer (Default)
 	 * 1: custom set interval countdown timer (old Default)
-	 * 2: TODO- countUp timer
+	 * 2: countUp timer (stopwatch), the session ends when the user stops it
+	 * 3: Pomodoro, focus phases with short and long breaks in between
 	 */
 	private int focusMode;
 	
@@ -49,7 +61,7 @@ public class ProfileSettings {
 	 */
 	public ProfileSettings(int languageIndicator) {
 		this.focusMode = 0;
-		this.lang = new Language(languageIndicator);
+		this.lang = Language.of(languageIndicator);
 		this.sessionSounds = 0;
 		this.backgroundSounds = 0;
 	}
@@ -60,7 +72,7 @@ public class ProfileSettings {
 	 */
 	public ProfileSettings(int focusMode, int languageIndicator, int sessionSounds, int backgroundSounds) {
 		this.focusMode = focusMode;
-		this.lang = new Language(languageIndicator);
+		this.lang = Language.of(languageIndicator);
 		this.sessionSounds = sessionSounds;
 		this.backgroundSounds = backgroundSounds;
 	}
@@ -74,7 +86,9 @@ public class ProfileSettings {
 	}
 
 	public void setFocusMode(int focusMode) {
+		int old = this.focusMode;
 		this.focusMode = focusMode;
+		changes.firePropertyChange(FOCUS_MODE, old, focusMode);
 	}
 
 	public Language getLang() {
@@ -82,7 +96,18 @@ public class ProfileSettings {
 	}
 
 	public void setLang(Language lang) {
+		int old = this.lang.getIndicator();
 		this.lang = lang;
+		changes.firePropertyChange(LANGUAGE, old, lang.getIndicator());
+	}
+	
+	/*
+	 * Changes the language by its indicator
+	 */
+	public void setLanguage(int languageIndicator) {
+		int old = lang.getIndicator();
+		lang = Language.of(languageIndicator);
+		changes.firePropertyChange(LANGUAGE, old, languageIndicator);
 	}
 
 	public int getSessionSounds() {
@@ -101,6 +126,14 @@ public class ProfileSettings {
 		this.backgroundSounds = backgroundSounds;
 	}
 	
+	public void addPropertyChangeListener(PropertyChangeListener listener) {
+		changes.addPropertyChangeListener(listener);
+	}
+	
+	public void removePropertyChangeListener(PropertyChangeListener listener) {
+		changes.removePropertyChangeListener(listener);
+	}
+	
 	@Override
 	public String toString() {
 		String settingsInfo = focusMode + "," + lang.getIndicator() + "," + sessionSounds + "," + backgroundSounds;
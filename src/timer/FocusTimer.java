@@ -0,0 +1,201 @@
+package timer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * @description Focus session timer driven by a monotonic clock
+ *
+ * @purpose The old countdown decremented a counter once per javax.swing.Timer callback, so every late
+ * callback (a busy EDT, an open dialog) was lost time and long sessions were credited less than they ran.
+ * This timer only remembers when the session started. Elapsed and remaining time are always calculated
+ * from the clock (System.nanoTime by default, which never jumps with the wall clock), so it does not
+ * matter how often or how late poll is called.
+ *
+ * Whoever drives the timer (usually TimerService) calls poll regularly. Listeners get a tick every time
+ * the shown second changes and one finished call when the countdown reaches zero. The clock can be
+ * replaced, so the timer can be tested without Swing and without waiting.
+ *
+ * A count-up timer (stopwatch) has no end: it shows the elapsed time and runs until it is stopped.
+ */
+
+public class FocusTimer {
+
+	public static final long NANOS_PER_SECOND = 1000000000L;
+
+	/*
+	 * Source of monotonic time in nanoseconds
+	 */
+	public interface Clock {
+		long nanoTime();
+	}
+
+	public static final Clock SYSTEM_CLOCK = new Clock() {
+		@Override
+		public long nanoTime() {
+			return System.nanoTime();
+		}
+	};
+
+	/*
+	 * Listeners are called through the listener executor, by default on the thread that calls poll
+	 */
+	public interface Listener {
+		void tick(FocusTimer timer);
+
+		void finished(FocusTimer timer);
+	}
+
+	private final Clock clock;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+	private Executor listenerExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private long durationNanos;
+	private long startNanos;
+	private long elapsedNanos;	//elapsed time once the timer stopped
+	private boolean running;
+	private boolean countUp;
+	private long shownSecond = -1;
+
+	public FocusTimer() {
+		this(SYSTEM_CLOCK);
+	}
+
+	public FocusTimer(Clock clock) {
+		this.clock = clock;
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/*
+	 * Executor the listeners are called with, e.g. SwingUtilities.invokeLater for listeners that update the GUI
+	 */
+	public void setListenerExecutor(Executor executor) {
+		this.listenerExecutor = executor;
+	}
+
+	public Executor getListenerExecutor() {
+		return listenerExecutor;
+	}
+
+	/*
+	 * Starts counting down from the duration
+	 */
+	public synchronized void start(long durationNanos) {
+		this.durationNanos = durationNanos;
+		this.startNanos = clock.nanoTime();
+		this.elapsedNanos = 0;
+		this.shownSecond = -1;
+		this.countUp = false;
+		this.running = true;
+	}
+
+	/*
+	 * Starts counting up from zero, until stop is called
+	 */
+	public synchronized void startCountUp() {
+		start(Long.MAX_VALUE);
+		this.countUp = true;
+	}
+
+	/*
+	 * Stops the timer early (the session was broken), returns the elapsed time
+	 */
+	public synchronized long stop() {
+		if(running) {
+			elapsedNanos = Math.min(clock.nanoTime() - startNanos, durationNanos);
+			running = false;
+		}
+		return elapsedNanos;
+	}
+
+	/*
+	 * Checks the clock and notifies the listeners
+	 * A countdown that reached zero is credited exactly its duration, however late this is called.
+	 */
+	public void poll() {
+		final boolean tick;
+		final boolean finished;
+
+		synchronized(this) {
+			if(!running)
+				return;
+
+			long elapsed = clock.nanoTime() - startNanos;
+			finished = elapsed >= durationNanos;
+			if(finished) {
+				elapsedNanos = durationNanos;
+				running = false;
+			}
+
+			long second = countUp ? getElapsedSeconds() : getRemainingSeconds();
+			tick = !finished && second != shownSecond;
+			shownSecond = second;
+		}
+
+		if(!tick && !finished)
+			return;
+
+		listenerExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				for(Listener listener : listeners) {
+					if(finished)
+						listener.finished(FocusTimer.this);
+					else
+						listener.tick(FocusTimer.this);
+				}
+			}
+		});
+	}
+
+	public synchronized boolean isRunning() {
+		return running;
+	}
+
+	public synchronized boolean isCountUp() {
+		return countUp;
+	}
+
+	public synchronized long getDurationNanos() {
+		return durationNanos;
+	}
+
+	public synchronized long getElapsedNanos() {
+		if(running)
+			return Math.min(clock.nanoTime() - startNanos, durationNanos);
+		return elapsedNanos;
+	}
+
+	public synchronized long getRemainingNanos() {
+		return durationNanos - getElapsedNanos();
+	}
+
+	/*
+	 * Remaining whole seconds as shown on the countdown, rounded up so 0:00 is only shown at the end
+	 */
+	public synchronized long getRemainingSeconds() {
+		if(countUp)
+			return 0;
+		return (getRemainingNanos() + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+	}
+
+	/*
+	 * Elapsed whole seconds, as credited to the profile
+	 */
+	public synchronized long getElapsedSeconds() {
+		return getElapsedNanos() / NANOS_PER_SECOND;
+	}
+}
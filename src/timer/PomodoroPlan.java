@@ -0,0 +1,118 @@
+package timer;
+
+import java.util.Arrays;
+
+/**
+ * @description A whole Pomodoro study block, planned before it starts
+ *
+ * @purpose A Pomodoro block is focus, short break, focus, short break ... and a long break after every
+ * few focus phases. The plan computes every phase up front: its kind, its length and its offset from the
+ * start of the block. While the block runs, the current phase is found from the elapsed time alone
+ * (binary search over the offsets), so phases change at exactly the planned moments and a late
+ * update never shifts the phases after it.
+ */
+
+public class PomodoroPlan {
+
+	public static final int FOCUS = 0;
+	public static final int SHORT_BREAK = 1;
+	public static final int LONG_BREAK = 2;
+
+	public static final int SHORT_BREAK_MINUTES = 5;
+	public static final int LONG_BREAK_MINUTES = 15;
+	public static final int FOCUS_PER_LONG_BREAK = 4;
+
+	private final int[] kinds;
+	private final long[] offsets;	//offsets[i] is the start of phase i, offsets[length] the end of the plan
+	private final int focusPhases;
+
+	private PomodoroPlan(int[] kinds, long[] durations) {
+		this.kinds = kinds;
+		this.offsets = new long[kinds.length + 1];
+		int focus = 0;
+		for(int i = 0; i < kinds.length; i++) {
+			offsets[i + 1] = offsets[i] + durations[i];
+			if(kinds[i] == FOCUS)
+				focus++;
+		}
+		this.focusPhases = focus;
+	}
+
+	/*
+	 * Builds a plan of focusPhases focus phases with breaks in between
+	 * A short break follows every focus phase, every FOCUS_PER_LONG_BREAK-th one is followed by a long break.
+	 * The plan ends with the last focus phase.
+	 */
+	public static PomodoroPlan build(long focusNanos, long shortBreakNanos, long longBreakNanos, int focusPerLongBreak, int focusPhases) {
+		int length = Math.max(1, focusPhases * 2 - 1);
+		int[] kinds = new int[length];
+		long[] durations = new long[length];
+
+		for(int i = 0; i < length; i++) {
+			if(i % 2 == 0) {
+				kinds[i] = FOCUS;
+				durations[i] = focusNanos;
+			} else if(((i + 1) / 2) % focusPerLongBreak == 0) {
+				kinds[i] = LONG_BREAK;
+				durations[i] = longBreakNanos;
+			} else {
+				kinds[i] = SHORT_BREAK;
+				durations[i] = shortBreakNanos;
+			}
+		}
+		return new PomodoroPlan(kinds, durations);
+	}
+
+	/*
+	 * The standard plan: focus phases of the given length, 5 minute short breaks, 15 minute long breaks
+	 */
+	public static PomodoroPlan standard(int focusMinutes, int focusPhases) {
+		long minute = 60 * FocusTimer.NANOS_PER_SECOND;
+		return build(focusMinutes * minute, SHORT_BREAK_MINUTES * minute, LONG_BREAK_MINUTES * minute, FOCUS_PER_LONG_BREAK, focusPhases);
+	}
+
+	/*
+	 * Index of the phase that is running after the elapsed time, or getPhaseCount() once the plan is over
+	 */
+	public int phaseAt(long elapsedNanos) {
+		int index = Arrays.binarySearch(offsets, elapsedNanos);
+		if(index < 0)
+			index = -index - 2;	//insertion point - 1: the phase that started before the elapsed time
+		return Math.min(index, kinds.length);
+	}
+
+	public int getPhaseCount() {
+		return kinds.length;
+	}
+
+	public int getFocusPhaseCount() {
+		return focusPhases;
+	}
+
+	public int getKind(int phase) {
+		return kinds[phase];
+	}
+
+	public long getStartNanos(int phase) {
+		return offsets[phase];
+	}
+
+	public long getDurationNanos(int phase) {
+		return offsets[phase + 1] - offsets[phase];
+	}
+
+	public long getEndNanos(int phase) {
+		return offsets[phase + 1];
+	}
+
+	public long getTotalNanos() {
+		return offsets[kinds.length];
+	}
+
+	/*
+	 * Number of the focus phase (1 = first) that the phase is, or follows
+	 */
+	public int getFocusNumber(int phase) {
+		return phase / 2 + 1;
+	}
+}
@@ -0,0 +1,103 @@
+package timer;
+
+/**
+ * @description Runs a PomodoroPlan with a single focus timer
+ *
+ * @purpose The whole plan is one FocusTimer session (driven by TimerService) that lasts as long as the
+ * plan. The current phase is derived from the elapsed time of that timer, so there is no new timer,
+ * click or GUI reset between phases. Every phase that ends is reported once with its exact planned
+ * length; only a phase that is stopped early reports the time it actually ran.
+ */
+
+public class PomodoroScheduler implements FocusTimer.Listener {
+
+	/*
+	 * Called through the listener executor of the focus timer
+	 */
+	public interface Listener {
+		//The shown time of the current phase changed
+		void tick(PomodoroScheduler scheduler, int phase, long remainingSeconds);
+
+		void phaseStarted(PomodoroScheduler scheduler, int phase);
+
+		//completed: false when the plan was stopped during the phase
+		void phaseEnded(PomodoroScheduler scheduler, int phase, long elapsedNanos, boolean completed);
+
+		void planFinished(PomodoroScheduler scheduler);
+	}
+
+	private final PomodoroPlan plan;
+	private final FocusTimer timer;
+	private final Listener listener;
+	private int phase = -1;
+
+	public PomodoroScheduler(PomodoroPlan plan, FocusTimer timer, Listener listener) {
+		this.plan = plan;
+		this.timer = timer;
+		this.listener = listener;
+	}
+
+	public void start() {
+		phase = -1;
+		timer.addListener(this);
+		timer.start(plan.getTotalNanos());
+		TimerService.shared().schedule(timer);
+	}
+
+	/*
+	 * Stops the plan, the running phase ends early
+	 */
+	public void stop() {
+		long elapsed = timer.stop();
+		TimerService.shared().remove(timer);
+		timer.removeListener(this);
+
+		advanceTo(elapsed);
+		if(phase >= 0 && phase < plan.getPhaseCount())
+			listener.phaseEnded(this, phase, elapsed - plan.getStartNanos(phase), false);
+		phase = plan.getPhaseCount();
+	}
+
+	public PomodoroPlan getPlan() {
+		return plan;
+	}
+
+	public int getPhase() {
+		return phase;
+	}
+
+	public boolean isRunning() {
+		return phase < plan.getPhaseCount() && timer.isRunning();
+	}
+
+	@Override
+	public void tick(FocusTimer t) {
+		long elapsed = t.getElapsedNanos();
+		advanceTo(elapsed);
+		if(phase < plan.getPhaseCount()) {
+			long remaining = plan.getEndNanos(phase) - elapsed;
+			listener.tick(this, phase, (remaining + FocusTimer.NANOS_PER_SECOND - 1) / FocusTimer.NANOS_PER_SECOND);
+		}
+	}
+
+	@Override
+	public void finished(FocusTimer t) {
+		timer.removeListener(this);
+		advanceTo(plan.getTotalNanos());
+		listener.planFinished(this);
+	}
+
+	/*
+	 * Ends every phase that is over at the elapsed time and starts the next one
+	 */
+	private void advanceTo(long elapsedNanos) {
+		int current = plan.phaseAt(elapsedNanos);
+		while(phase < current) {
+			if(phase >= 0)
+				listener.phaseEnded(this, phase, plan.getDurationNanos(phase), true);
+			phase++;
+			if(phase < plan.getPhaseCount())
+				listener.phaseStarted(this, phase);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package timer;
+
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * @description One scheduled thread that drives every running focus timer
+ *
+ * @purpose Every window used to create its own javax.swing.Timer for each session. The timer service is
+ * shared by all windows: a single daemon thread polls the running timers once per display frame
+ * (the refresh rate of the screen, 60 Hz when it is unknown). Polling is cheap, since FocusTimer only
+ * compares the clock, and the listeners (and with them the GUI) are only called when the shown
+ * second changes, so the screen is never updated more often than it is refreshed.
+ * The thread only runs while a timer is scheduled.
+ *
+ * In low power mode (the window is minimized or hidden, nothing is shown) the timers are only polled
+ * once per second. A timer that finishes in between is still credited its exact duration.
+ */
+
+public class TimerService {
+
+	private static final int DEFAULT_REFRESH_RATE = 60;
+	public static final long LOW_POWER_PERIOD_NANOS = FocusTimer.NANOS_PER_SECOND;
+
+	private static final TimerService shared = new TimerService(framePeriodNanos());
+
+	private final long periodNanos;
+	private final Set<FocusTimer> timers = new CopyOnWriteArraySet<FocusTimer>();
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "TamoStudy-timer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	private ScheduledFuture<?> polling;
+	private boolean lowPower;
+	private long polls;
+
+	public TimerService(long periodNanos) {
+		this.periodNanos = periodNanos;
+	}
+
+	public static TimerService shared() {
+		return shared;
+	}
+
+	/*
+	 * Polls the timer until it has finished or is removed
+	 */
+	public synchronized void schedule(FocusTimer timer) {
+		timers.add(timer);
+		if(polling == null)
+			startPolling();
+	}
+	
+	private void startPolling() {
+		polling = executor.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				pollAll();
+			}
+		}, 0, getPeriodNanos(), TimeUnit.NANOSECONDS);
+	}
+	
+	/*
+	 * Switches between polling once per frame and once per second
+	 */
+	public synchronized void setLowPower(boolean lowPower) {
+		if(this.lowPower == lowPower)
+			return;
+		this.lowPower = lowPower;
+		if(polling != null) {
+			polling.cancel(false);
+			startPolling();
+		}
+	}
+	
+	public synchronized boolean isLowPower() {
+		return lowPower;
+	}
+
+	public synchronized void remove(FocusTimer timer) {
+		timers.remove(timer);
+		if(timers.isEmpty() && polling != null) {
+			polling.cancel(false);
+			polling = null;
+		}
+	}
+
+	public synchronized long getPeriodNanos() {
+		return lowPower ? Math.max(periodNanos, LOW_POWER_PERIOD_NANOS) : periodNanos;
+	}
+	
+	//Number of times the timers were polled, for the debug counters
+	public synchronized long getPollCount() {
+		return polls;
+	}
+
+	private void pollAll() {
+		synchronized(this) {
+			polls++;
+		}
+		for(FocusTimer timer : timers) {
+			try {
+				timer.poll();
+			} catch (RuntimeException e) {
+				System.out.println("Focus timer failed due to exception." + e);
+			}
+			if(!timer.isRunning())
+				remove(timer);
+		}
+	}
+
+	/*
+	 * Length of one frame of the default screen
+	 */
+	private static long framePeriodNanos() {
+		int refreshRate = DEFAULT_REFRESH_RATE;
+		try {
+			if(!GraphicsEnvironment.isHeadless()) {
+				int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+				if(rate != DisplayMode.REFRESH_RATE_UNKNOWN)
+					refreshRate = rate;
+			}
+		} catch (RuntimeException e) {
+			//No screen information, keep the default
+		}
+		return FocusTimer.NANOS_PER_SECOND / refreshRate;
+	}
+}
@@ -3,14 +3,15 @@
  * @description welcome to TamoStudy page
  * 
  * @purpose Creates launching page for TamoStudy application
- * Users can create a new profile, fill out new profile form, then save profile text file to file system
- * Users can load their created profile. It must be a profile text file that is on their file system
+ * Users can create a new profile, fill out new profile form, then save the profile file (binary, see BinaryProfile) to file system
+ * Users can load their created profile. It must be a profile file (text or binary) that is on their file system
  * Users can read "ABOUT" which displays TamoStudy about page with links
  */
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import profile.*;
+import guicomponents.IconCache;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
@@ -18,6 +19,7 @@ import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.concurrent.Callable;
 
 public class welcomeGUI extends JFrame {
 	
@@ -33,6 +35,7 @@ public class welcomeGUI extends JFrame {
 	//private JMenu menu;
 	private JButton updateProfile;
 	private JButton checkForUpdatesButton;
+	private JButton profileStoreButton;
 	
 	/*
 	 * Variables, file information
@@ -48,6 +51,9 @@ public class welcomeGUI extends JFrame {
 	private JFileChooser fileChooser;
 	private Encryption encryption;
 	
+	//True while a profile or store is being read in the background
+	private boolean loading;
+	
 	/*
 	 * Constructor
 	 */
@@ -69,7 +75,7 @@ public class welcomeGUI extends JFrame {
 	 * Method sets up the frame information
 	 */
 	public void setUpFrame() {
-		ImageIcon logo = new ImageIcon(getClass().getClassLoader().getResource("ico.png"));
+		ImageIcon logo = IconCache.get("ico.png");
 		
 		//UI Manager implements background colors for panels and option panes
 		UIManager UI = new UIManager();
@@ -95,10 +101,13 @@ public class welcomeGUI extends JFrame {
 		checkForUpdatesButton = new JButton("Check for Updates");
 		initButton(checkForUpdatesButton);
 		
+		profileStoreButton = new JButton("Profile Store");
+		initButton(profileStoreButton);
+		
 		encryption = new Encryption();
 		
 		fileChooser = new JFileChooser();
-		imageLabel = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("wel-welcome.png")));
+		imageLabel = new JLabel(IconCache.get("wel-welcome.png"));
 		
 		topPanel = new JPanel();
 		centerPanel = new JPanel();
@@ -109,15 +118,15 @@ public class welcomeGUI extends JFrame {
 		
 		botLabel = new JLabel("alpha 0.5.0");
 		
-		createProfileButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("wel-new_button.png")));
+		createProfileButton = new JButton(IconCache.get("wel-new_button.png"));
 		createProfileButton.setBorderPainted(false);
 		createProfileButton.setFocusPainted(false);
 		createProfileButton.setContentAreaFilled(false);
-		existingLoginButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("wel-load_button.png")));
+		existingLoginButton = new JButton(IconCache.get("wel-load_button.png"));
 		existingLoginButton.setBorderPainted(false);
 		existingLoginButton.setFocusPainted(false);
 		existingLoginButton.setContentAreaFilled(false);
-		aboutButton = new JButton(new ImageIcon(getClass().getClassLoader().getResource("wel-about.png")));
+		aboutButton = new JButton(IconCache.get("wel-about.png"));
 		aboutButton.setBorderPainted(false);
 		aboutButton.setFocusPainted(false);
 		aboutButton.setContentAreaFilled(false);
@@ -187,17 +196,18 @@ public class welcomeGUI extends JFrame {
 			public void actionPerformed(ActionEvent e) {
 				
 				if(selectFile() == 1) {
-					try {
-						profile = getProfileInfoFromFile();
-					} catch (NumberFormatException e1) {
-						// TODO Auto-generated catch block
-						e1.printStackTrace();
-					} catch (IOException e1) {
-						// TODO Auto-generated catch block
-						e1.printStackTrace();
+					if(ProfileStore.isStore(file)) {
+						showProfileStore(file);
+						return;
 					}
-					GUI Focus = new GUI(profile, file);
-					hideWindow();
+					
+					final File profileFile = file;
+					openProfile(profileFile, new Callable<Profile>() {
+						@Override
+						public Profile call() throws Exception {
+							return getProfileInfoFromFile(profileFile);
+						}
+					});
 				} else {
 					//do nothing
 				}
@@ -217,8 +227,8 @@ public class welcomeGUI extends JFrame {
 				rightPanel.setBackground(new Color(255,161,161));
 				rightPanel.setLayout(new GridLayout(4,1));
 				
-				JLabel label = new JLabel(new ImageIcon(getClass().getClassLoader().getResource("about-about.png")));
-				JButton twitter_button = new JButton(new ImageIcon(getClass().getClassLoader().getResource("about-twitter.png")));
+				JLabel label = new JLabel(IconCache.get("about-about.png"));
+				JButton twitter_button = new JButton(IconCache.get("about-twitter.png"));
 				initButton(twitter_button);
 				
 				twitter_button.addActionListener(new ActionListener() {
@@ -241,7 +251,7 @@ public class welcomeGUI extends JFrame {
 					
 				});
 				
-				JButton github_button = new JButton(new ImageIcon(getClass().getClassLoader().getResource("about-github.png")));
+				JButton github_button = new JButton(IconCache.get("about-github.png"));
 				initButton(github_button);
 				
 				github_button.addActionListener(new ActionListener() {
@@ -264,7 +274,7 @@ public class welcomeGUI extends JFrame {
 					
 				});
 				
-				JButton discord_button = new JButton(new ImageIcon(getClass().getClassLoader().getResource("about-discord.png")));
+				JButton discord_button = new JButton(IconCache.get("about-discord.png"));
 				initButton(discord_button);
 				
 				discord_button.addActionListener(new ActionListener() {
@@ -287,7 +297,7 @@ public class welcomeGUI extends JFrame {
 					
 				});		
 				
-				JButton personal_button = new JButton(new ImageIcon(getClass().getClassLoader().getResource("about-narlock.png")));
+				JButton personal_button = new JButton(IconCache.get("about-narlock.png"));
 				initButton(personal_button);
 				
 				personal_button.addActionListener(new ActionListener() {
@@ -324,6 +334,18 @@ public class welcomeGUI extends JFrame {
 			
 		});
 		
+		//User wants to open or create a profile store holding many profiles
+		profileStoreButton.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if(fileChooser.showDialog(welcomeGUI.this, "Open Store") == JFileChooser.APPROVE_OPTION) {
+					showProfileStore(fileChooser.getSelectedFile());
+				}
+			}
+			
+		});
+		
 		updateProfile.addActionListener(new ActionListener() {
 
 			@Override
@@ -406,7 +428,7 @@ public class welcomeGUI extends JFrame {
 					updatesPanel.add(updateResult);
 					updatesPanel.add(clickHereToDownload);
 					updatesPanel.add(notifyButton);
-					JOptionPane.showMessageDialog(rootPane, updatesPanel, "Checking for Updates", JOptionPane.PLAIN_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(rootPane, updatesPanel, "Checking for Updates", JOptionPane.PLAIN_MESSAGE, IconCache.get("info.png"));
 				
 				}
 				else {
@@ -439,7 +461,7 @@ public class welcomeGUI extends JFrame {
 					updatesPanel.setLayout(new GridLayout(2,1));
 					updatesPanel.add(updateResult);
 					updatesPanel.add(notifyButton);
-					JOptionPane.showMessageDialog(rootPane, updatesPanel, "Checking for Updates", JOptionPane.PLAIN_MESSAGE, new ImageIcon(getClass().getClassLoader().getResource("info.png")));
+					JOptionPane.showMessageDialog(rootPane, updatesPanel, "Checking for Updates", JOptionPane.PLAIN_MESSAGE, IconCache.get("info.png"));
 				}
 				
 				
@@ -475,6 +497,7 @@ public class welcomeGUI extends JFrame {
 		//menu.add(updateProfile);
 		topPanel.add(checkForUpdatesButton);
 		topPanel.add(updateProfile);
+		topPanel.add(profileStoreButton);
 	}
 	
 	public void addComponentsToCenterPanel() {
@@ -508,31 +531,18 @@ public class welcomeGUI extends JFrame {
 			return 0;
 		}
 		
-		File fileName = new File(SaveAs.getSelectedFile() + ".txt");
-		BufferedWriter outFile = null;
+		//New profiles are binary (see BinaryProfile), so commas in the names can't break them
+		File fileName = new File(SaveAs.getSelectedFile() + ".tamo");
 		try {
-			outFile = new BufferedWriter(new FileWriter(fileName));
 			//Write Profile Information
-			String profileInfo = p.toString() + "," + p.getSettings().toString() + "," + p.getTamo().toString() + "," + p.getAhm().getAhmString();
-			String encryptedInfo = encryption.encrypt(profileInfo);
-			
-			outFile.append(encryptedInfo);
+			BinaryProfile.write(p, fileName);
 			
+			this.file = fileName;
+			return 1;
 		} catch (IOException ex) {
 			ex.printStackTrace();
-		} finally {
-			if (outFile != null) {
-				try {
-					this.file = new File(SaveAs.getSelectedFile() + ".txt");
-					outFile.close();
-					return 1;
-				} catch (IOException ex2) {
-					
-				}
-			}
 		}
 		
-		
 		return 0;
 	}
 	
@@ -566,33 +576,173 @@ public class welcomeGUI extends JFrame {
 		}
 	}
 	
-	public Profile getProfileInfoFromFile() throws NumberFormatException, IOException {
-		BufferedReader br = new BufferedReader(new FileReader(file));
-		String line = "";
-		Profile nullProfile;
-		
-		//TODO: fix this shit
-		while((line = (br.readLine())) != null) {
-			if(!line.equals("")) {
-				System.out.println("line= " + line);
-				String decrypt = encryption.decrypt(line);
-				
-				String[] profileDetails = decrypt.split(","); 
+	/*
+	 * Reads the profile file, runs off the EDT (see openProfile)
+	 */
+	public Profile getProfileInfoFromFile(File file) throws NumberFormatException, IOException {
+		//A save of this profile may still be queued from the previous login
+		PersistenceService.awaitFlush(file);
+		
+		if(BinaryProfile.isBinary(file)) {
+			Profile load = BinaryProfile.read(file);
+			new ProfileJournal(file).replay(load);
+			return load;
+		}
+		
+		String decrypt = encryption.readFile(file);
+		if(decrypt.equals(""))
+			return new Profile();
+		
+		Profile load = Profile.fromFileString(decrypt);
+		
+		//Apply events that were journaled after the last snapshot
+		new ProfileJournal(file).replay(load);
+		return load;
+	}
+	
+	/*
+	 * Loads a profile in the background and opens it in the main window
+	 * Reading a profile waits for its queued saves (see PersistenceService.awaitFlush), so it never runs
+	 * on the EDT. The logins and study history of the profile are read here too, the main window only
+	 * takes them from memory.
+	 */
+	public void openProfile(final File profileFile, final Callable<Profile> loader) {
+		if(loading)
+			return;
+		loading = true;
+		
+		new SwingWorker<Profile, Void>() {
+			@Override
+			protected Profile doInBackground() throws Exception {
+				Profile load = loader.call();
+				if(load == null)
+					throw new IOException("Profile not found");
 				
-				for(int i = 0; i < profileDetails.length; i++) {
-					System.out.println("profileDetails["+i+"] = " + profileDetails[i]);
+				LoginStreak.open(profileFile, load.getUsername());
+				StudyHistory.open(profileFile, load.getUsername());
+				return load;
+			}
+			
+			@Override
+			protected void done() {
+				loading = false;
+				try {
+					profile = get();
+				} catch (Exception e) {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					System.out.println("Loading profile failed due to exception." + cause);
+					JOptionPane.showMessageDialog(rootPane, "Could not load profile:\n" + cause.getMessage(), "TamoStudy", JOptionPane.ERROR_MESSAGE);
+					return;
 				}
 				
-				ProfileSettings loadSettings = new ProfileSettings(Integer.parseInt(profileDetails[8]), Integer.parseInt(profileDetails[9]), Integer.parseInt(profileDetails[10]), Integer.parseInt(profileDetails[11]));
-				Achievements loadAhm = new Achievements(profileDetails[16]);
-				Tamo loadTamo = new Tamo(profileDetails[12], Integer.parseInt(profileDetails[13]), Integer.parseInt(profileDetails[14]), Integer.parseInt(profileDetails[15]));
-				
-				Profile load = new Profile(profileDetails[0], profileDetails[1], profileDetails[2], Integer.parseInt(profileDetails[3]), Integer.parseInt(profileDetails[4]), Integer.parseInt(profileDetails[5]), profileDetails[6], Integer.parseInt(profileDetails[7]), loadSettings, loadTamo, loadAhm);
-				br.close();
-				return load;
+				file = profileFile;
+				GUI Focus = new GUI(profile, file);
+				hideWindow();
+			}
+		}.execute();
+	}
+	
+	/*
+	 * Opens (or creates) the profile store in the background, then shows its profiles
+	 */
+	public void showProfileStore(final File storeFile) {
+		if(loading)
+			return;
+		loading = true;
+		
+		new SwingWorker<ProfileStore, Void>() {
+			@Override
+			protected ProfileStore doInBackground() throws Exception {
+				return ProfileStore.open(storeFile);
+			}
+			
+			@Override
+			protected void done() {
+				loading = false;
+				try {
+					showProfileStore(get());
+				} catch (Exception e) {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					JOptionPane.showMessageDialog(rootPane, "Could not open profile store:\n" + cause.getMessage(), "Profile Store", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		}.execute();
+	}
+	
+	/*
+	 * Shows the profiles of a profile store. The user can search them by username,
+	 * open one of them, or import existing profile files into the store.
+	 */
+	private void showProfileStore(final ProfileStore store) {
+		JPanel storePanel = new JPanel(new BorderLayout());
+		JTextField searchField = new JTextField(20);
+		DefaultListModel<String> names = new DefaultListModel<String>();
+		JList<String> nameList = new JList<String>(names);
+		nameList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		for(String name : store.usernames()) {
+			names.addElement(name);
+		}
+		
+		searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+			public void insertUpdate(javax.swing.event.DocumentEvent e) { filter(); }
+			public void removeUpdate(javax.swing.event.DocumentEvent e) { filter(); }
+			public void changedUpdate(javax.swing.event.DocumentEvent e) { filter(); }
+			
+			private void filter() {
+				names.clear();
+				for(String name : store.search(searchField.getText())) {
+					names.addElement(name);
+				}
 			}
+		});
+		
+		storePanel.add(searchField, BorderLayout.NORTH);
+		storePanel.add(new JScrollPane(nameList), BorderLayout.CENTER);
+		
+		Object[] options = {"Open", "Import Profiles", "Cancel"};
+		int resultPane = JOptionPane.showOptionDialog(rootPane, storePanel, "Profile Store (" + store.usernames().size() + " profiles)",
+				JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+		
+		if(resultPane == 0 && nameList.getSelectedValue() != null) {
+			final String username = nameList.getSelectedValue();
+			openProfile(store.getFile(), new Callable<Profile>() {
+				@Override
+				public Profile call() throws Exception {
+					//A save of this profile may still be queued from the previous login
+					PersistenceService.awaitFlush(store.getFile());
+					return store.load(username);
+				}
+			});
+		} else if(resultPane == 1) {
+			JFileChooser importChooser = new JFileChooser();
+			importChooser.setMultiSelectionEnabled(true);
+			if(importChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+				showProfileStore(store);
+				return;
+			}
+			
+			final File[] profileFiles = importChooser.getSelectedFiles();
+			loading = true;
+			new SwingWorker<Void, Void>() {
+				@Override
+				protected Void doInBackground() {
+					for(File profileFile : profileFiles) {
+						try {
+							store.importProfile(profileFile);
+						} catch (Exception e) {
+							System.out.println("Importing " + profileFile + " failed due to exception." + e);
+						}
+					}
+					return null;
+				}
+				
+				@Override
+				protected void done() {
+					loading = false;
+					showProfileStore(store);
+				}
+			}.execute();
 		}
-		return new Profile();
 	}
 	
 	public void initButton(JButton button) {